@@ -0,0 +1,38 @@
+package com.upgrad.quora.api.config;
+
+import com.upgrad.quora.service.business.UserSessionCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * This interceptor resolves the "authorization" header of the request into a UserSession once,
+ * before the controller is called. The session is stored as a request attribute and handed to the
+ * controllers by UserSessionArgumentResolver, so that every service called while handling the
+ * request works on the same principal. A token that does not resolve leaves the attribute null;
+ * the services then reject the request with the usual ATHR-001/ATHR-002 errors.
+ */
+@Component
+public class AuthenticationInterceptor extends HandlerInterceptorAdapter {
+
+  static final String AUTHORIZATION_HEADER = "authorization";
+
+  static final String USER_SESSION_ATTRIBUTE =
+      AuthenticationInterceptor.class.getName() + ".userSession";
+
+  @Autowired
+  private UserSessionCache userSessionCache;
+
+  @Override
+  public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response,
+      final Object handler) {
+    final String accessToken = request.getHeader(AUTHORIZATION_HEADER);
+    if (accessToken != null) {
+      request.setAttribute(USER_SESSION_ATTRIBUTE, userSessionCache.getSession(accessToken));
+    }
+    return true;
+  }
+}
@@ -0,0 +1,36 @@
+package com.upgrad.quora.api.config;
+
+import com.upgrad.quora.service.business.SessionSweeper;
+import com.upgrad.quora.service.business.UserSessionCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This Configuration binds the meters of the service components that depend on the database to
+ * the meter registry.
+ *
+ * Spring Boot binds every MeterBinder bean when the registry is created, which happens while the
+ * Hikari data source is being post-processed. Components depending on the data source cannot be
+ * created at that point, so Spring Boot skips them and they would never publish their meters.
+ * They are bound here instead, once every singleton has been created.
+ */
+@Configuration
+public class MetricsConfiguration implements SmartInitializingSingleton {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private SessionSweeper sessionSweeper;
+
+  @Autowired
+  private UserSessionCache userSessionCache;
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    sessionSweeper.bindTo(meterRegistry);
+    userSessionCache.bindTo(meterRegistry);
+  }
+}
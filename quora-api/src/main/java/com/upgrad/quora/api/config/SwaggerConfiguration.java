@@ -1,6 +1,7 @@
 package com.upgrad.quora.api.config;
 
 
+import com.upgrad.quora.service.business.UserSession;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import springfox.documentation.builders.PathSelectors;
@@ -18,7 +19,8 @@ public class SwaggerConfiguration {
 
   @Bean
   public Docket swagger() {
-    return new Docket(DocumentationType.SWAGGER_2).select()
+    return new Docket(DocumentationType.SWAGGER_2)
+        .ignoredParameterTypes(UserSession.class).select()
         .apis(RequestHandlerSelectors.basePackage("com.upgrad.quora.api.controller"))
         .paths(PathSelectors.any()).build();
   }
@@ -0,0 +1,36 @@
+package com.upgrad.quora.api.config;
+
+import com.upgrad.quora.service.business.UserSession;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.ServletRequestBindingException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * This resolver passes the UserSession resolved by AuthenticationInterceptor to controller methods
+ * declaring a UserSession parameter. As with a required request header, a request without an
+ * "authorization" header is rejected with BAD REQUEST.
+ */
+public class UserSessionArgumentResolver implements HandlerMethodArgumentResolver {
+
+  @Override
+  public boolean supportsParameter(final MethodParameter parameter) {
+    return UserSession.class.equals(parameter.getParameterType());
+  }
+
+  @Override
+  public Object resolveArgument(final MethodParameter parameter,
+      final ModelAndViewContainer mavContainer, final NativeWebRequest webRequest,
+      final WebDataBinderFactory binderFactory) throws ServletRequestBindingException {
+    if (webRequest.getHeader(AuthenticationInterceptor.AUTHORIZATION_HEADER) == null) {
+      throw new ServletRequestBindingException("Missing request header '"
+          + AuthenticationInterceptor.AUTHORIZATION_HEADER + "' for method parameter of type "
+          + parameter.getNestedParameterType().getSimpleName());
+    }
+    return webRequest.getAttribute(AuthenticationInterceptor.USER_SESSION_ATTRIBUTE,
+        RequestAttributes.SCOPE_REQUEST);
+  }
+}
@@ -0,0 +1,66 @@
+package com.upgrad.quora.api.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This Configuration registers the authentication of the "authorization" header for every
+ * endpoint except the "/user" ones, which handle signup, signin and signout themselves.
+ *
+ * It also runs the bodies of the stream=true listings on a bounded pool, in place of the
+ * unbounded SimpleAsyncTaskExecutor Spring MVC uses by default, and times them out.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+  @Autowired
+  private AuthenticationInterceptor authenticationInterceptor;
+
+  // number of listings streamed at a time, as limited by RowStreams
+  @Value("${quora.streaming.max-concurrent:4}")
+  private int streamingMaxConcurrent;
+
+  @Value("${quora.streaming.timeout-seconds:300}")
+  private int streamingTimeoutSeconds;
+
+  /**
+   * @return one thread per listing streamed at a time; the queue holds as many, for listings
+   *     admitted while the thread of the previous one is still finishing
+   */
+  @Bean
+  public ThreadPoolTaskExecutor streamingTaskExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    // at least one thread, as a limit of 0 turns streaming off without leaving the pool invalid
+    executor.setCorePoolSize(Math.max(1, streamingMaxConcurrent));
+    executor.setMaxPoolSize(Math.max(1, streamingMaxConcurrent));
+    executor.setQueueCapacity(streamingMaxConcurrent);
+    executor.setThreadNamePrefix("streaming-");
+    return executor;
+  }
+
+  @Override
+  public void addInterceptors(final InterceptorRegistry registry) {
+    registry.addInterceptor(authenticationInterceptor).excludePathPatterns("/user/**");
+  }
+
+  @Override
+  public void addArgumentResolvers(final List<HandlerMethodArgumentResolver> resolvers) {
+    resolvers.add(new UserSessionArgumentResolver());
+  }
+
+  @Override
+  public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+    configurer.setTaskExecutor(streamingTaskExecutor());
+    configurer.setDefaultTimeout(TimeUnit.SECONDS.toMillis(streamingTimeoutSeconds));
+  }
+}
@@ -2,6 +2,7 @@ package com.upgrad.quora.api.controller;
 
 import com.upgrad.quora.api.model.UserDeleteResponse;
 import com.upgrad.quora.service.business.AdminBusinessService;
+import com.upgrad.quora.service.business.UserSession;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,10 +20,10 @@ public class AdminController {
   @RequestMapping(method = RequestMethod.DELETE, path = "user/{userId}")
   public ResponseEntity<UserDeleteResponse> deleteUser(
       @PathVariable("userId") String userId,
-      @RequestHeader("authorization") String accessToken)
+      UserSession userSession)
       throws AuthorizationFailedException, UserNotFoundException {
 
-    String deletedUserId = adminBusinessService.deleteUser(accessToken, userId);
+    String deletedUserId = adminBusinessService.deleteUser(userSession, userId);
     UserDeleteResponse userDeleteResponse = new UserDeleteResponse().id(deletedUserId)
         .status("USER SUCCESSFULLY DELETED");
     return new ResponseEntity<UserDeleteResponse>(userDeleteResponse, HttpStatus.OK);
@@ -1,21 +1,32 @@
 package com.upgrad.quora.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.AnswerBusinessService;
+import com.upgrad.quora.service.business.AnswerSummary;
+import com.upgrad.quora.service.business.IdProvider;
+import com.upgrad.quora.service.business.UserSession;
+import com.upgrad.quora.service.common.BulkItemResult;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.RowStream;
 import com.upgrad.quora.service.entity.AnswerEntity;
 import com.upgrad.quora.service.exception.AnswerNotFoundException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.BulkLimitExceededException;
+import com.upgrad.quora.service.exception.InvalidPageCursorException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/")
@@ -24,11 +35,17 @@ public class AnswerController {
   @Autowired
   private AnswerBusinessService answerBusinessService;
 
+  @Autowired
+  private IdProvider idProvider;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
 
   /**
    * Create Answer Controller
    * @param answerRequest - accepts AnswerRequest object
-   * @param accessToken   - accepts access token of signed in user
+   * @param userSession   - accepts session of signed in user, resolved from the access token
    * @param questionUuid  - accepts the question ID for which answer has to be created
    *
    * Creates an AnswerEntity object. Calls AnswerBusinessService, passes the object
@@ -44,17 +61,17 @@ public class AnswerController {
 
   public ResponseEntity<AnswerResponse> createAnswer(final AnswerRequest answerRequest,
       @PathVariable("questionId") final String questionUuid,
-      @RequestHeader("authorization") final String accessToken)
+      final UserSession userSession)
       throws InvalidQuestionException, AuthorizationFailedException {
 
     final AnswerEntity answerEntity = new AnswerEntity();
 
-    answerEntity.setUuid(UUID.randomUUID().toString());
+    answerEntity.setUuid(idProvider.nextId());
     answerEntity.setDate(ZonedDateTime.now());
     answerEntity.setAns(answerRequest.getAnswer());
 
     final AnswerEntity createdAnswerEntity = answerBusinessService
-        .createAnswer(answerEntity, questionUuid, accessToken);
+        .createAnswer(answerEntity, questionUuid, userSession);
 
     AnswerResponse answerResponse = new AnswerResponse().id(createdAnswerEntity.getUuid())
         .status("ANSWER CREATED");
@@ -62,10 +79,56 @@ public class AnswerController {
     return new ResponseEntity<AnswerResponse>(answerResponse, HttpStatus.CREATED);
   }
 
+  /**
+   * Bulk Create Answers Controller
+   * @param answerBulkRequests - accepts the list of AnswerBulkRequest objects in the request body
+   * @param userSession        - accepts session of signed in user, resolved from the access token
+   *
+   * Creates an AnswerEntity object for every answer. Calls AnswerBusinessService once, passing
+   * all of them along with the question ID of each
+   *
+   * @return The UUID of every answer created, or the reason it was not created, as part of
+   * AnswerBulkResponse objects in request order
+   * @exception AuthorizationFailedException if invalid credentials are used by the requester
+   * @exception BulkLimitExceededException if the request holds too many answers
+   */
+
+  @RequestMapping(method = RequestMethod.POST, path = "/answer/bulk-create",
+      consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+
+  public ResponseEntity<List<AnswerBulkResponse>> createAnswers(
+      @RequestBody final List<AnswerBulkRequest> answerBulkRequests,
+      final UserSession userSession)
+      throws AuthorizationFailedException, BulkLimitExceededException {
+
+    final ZonedDateTime now = ZonedDateTime.now();
+    final List<AnswerEntity> answerEntities = new ArrayList<>();
+    final List<String> questionUuids = new ArrayList<>();
+    for (AnswerBulkRequest answerBulkRequest : answerBulkRequests) {
+      final AnswerEntity answerEntity = new AnswerEntity();
+      answerEntity.setUuid(idProvider.nextId());
+      answerEntity.setDate(now);
+      answerEntity.setAns(answerBulkRequest.getAnswer());
+      answerEntities.add(answerEntity);
+      questionUuids.add(answerBulkRequest.getQuestionId());
+    }
+
+    final List<AnswerBulkResponse> answerBulkResponses = new ArrayList<>();
+    for (BulkItemResult result : answerBusinessService
+        .createAnswers(answerEntities, questionUuids, userSession)) {
+      answerBulkResponses.add(result.isCreated()
+          ? new AnswerBulkResponse().id(result.getUuid()).status("ANSWER CREATED")
+          : new AnswerBulkResponse().status("ANSWER NOT CREATED").code(result.getCode())
+              .message(result.getErrorMessage()));
+    }
+    return new ResponseEntity<List<AnswerBulkResponse>>(answerBulkResponses, HttpStatus.OK);
+  }
+
   /**
    * Edit Answer Controller
    * @param answerEditRequest - accepts AnswerEditRequest Object
-   * @param accessToken       - accepts access token of signed in user
+   * @param userSession       - accepts session of signed in user, resolved from the access token
    * @param answerId          - accepts answer ID from path passed on as a variable
    *
    * Updates the content of the answer with the specified answer ID, with the
@@ -84,14 +147,14 @@ public class AnswerController {
   public ResponseEntity<AnswerEditResponse> editAnswerContent(
       final AnswerEditRequest answerEditRequest,
       @PathVariable("answerId") final String answerId,
-      @RequestHeader("authorization") final String accessToken)
+      final UserSession userSession)
       throws AuthorizationFailedException, AnswerNotFoundException {
 
     AnswerEntity answerEntity = new AnswerEntity();
     answerEntity.setUuid(answerId);
     answerEntity.setAns(answerEditRequest.getContent());
 
-    AnswerEntity editedAnswerEntity = answerBusinessService.editAnswer(answerEntity, accessToken);
+    AnswerEntity editedAnswerEntity = answerBusinessService.editAnswer(answerEntity, userSession);
     AnswerEditResponse answerEditResponse = new AnswerEditResponse()
         .id(editedAnswerEntity.getUuid()).status("ANSWER EDITED");
 
@@ -100,7 +163,7 @@ public class AnswerController {
 
   /**
    * Delete Answer Controller
-   * @param accessToken - accepts access token of signed in user
+   * @param userSession - accepts session of signed in user, resolved from the access token
    * @param answerId    - accepts answer ID from path passed on as a variable
    *
    * Calls the AnswerBusinessService and passes the answerId to be deleted
@@ -115,10 +178,10 @@ public class AnswerController {
 
   public ResponseEntity<AnswerDeleteResponse> deleteAnswer(
       @PathVariable("answerId") final String answerId,
-      @RequestHeader("authorization") final String accessToken)
+      final UserSession userSession)
       throws AuthorizationFailedException, AnswerNotFoundException {
     
-    AnswerEntity deletedAnswer = answerBusinessService.deleteAnswer(answerId, accessToken);
+    AnswerEntity deletedAnswer = answerBusinessService.deleteAnswer(answerId, userSession);
     AnswerDeleteResponse answerDeleteResponse = new AnswerDeleteResponse()
         .id(deletedAnswer.getUuid()).status("ANSWER DELETED");
 
@@ -129,14 +192,18 @@ public class AnswerController {
   /**
    * Get All Answers to a question
    * @param questionUuid  - accepts the question ID from the path passed on as a variable
-   * @param accessToken   - accepts access token of signed in user
+   * @param userSession   - accepts session of signed in user, resolved from the access token
+   * @param cursor        - accepts the cursor returned with the previous page, absent for the first
+   * @param limit         - accepts the page size, capped by the service
    *
    * Calls the AnswerBusinessService and passes the question ID whose answers are to be fetched
    *
-   * @return Returns all answers of specific question from the DB along with the HTTP Status
-   * as a List of AnswerDetailsResponse objects, after validating the user request
+   * @return Returns one page of answers of specific question from the DB, newest first, along
+   * with the HTTP Status as a List of AnswerDetailsResponse objects, after validating the user
+   * request. The cursor of the next page is returned in the "next-cursor" header when there is one.
    * @throws AuthorizationFailedException if invalid credentials are used by the requester
    * @throws InvalidQuestionException if invalid question ID is passed
+   * @throws InvalidPageCursorException if the cursor cannot be decoded
    */
 
   @RequestMapping(method = RequestMethod.GET, path = "answer/all/{questionId}",
@@ -144,26 +211,66 @@ public class AnswerController {
 
   public ResponseEntity<List<AnswerDetailsResponse>> getAllAnswersToQuestion(
       @PathVariable("questionId") String questionUuid,
-      @RequestHeader("authorization") final String accessToken)
-      throws AuthorizationFailedException, InvalidQuestionException {
+      final UserSession userSession,
+      @RequestParam(value = "cursor", required = false) final String cursor,
+      @RequestParam(value = "limit", required = false) final Integer limit)
+      throws AuthorizationFailedException, InvalidQuestionException, InvalidPageCursorException {
 
     List<AnswerDetailsResponse> answerDetailsResponseList = new ArrayList<>();
 
-    List<AnswerEntity> allAnswersByQuestion = answerBusinessService
-        .getAllAnswersByQuestion(questionUuid, accessToken);
-
-    for (AnswerEntity answer : allAnswersByQuestion) {
-      String answerUuid = answer.getUuid();
-      String answerContent = answer.getAns();
-      String questionContent = answer.getQuestion().getContent();
+    KeysetPage<AnswerSummary> answersPage = answerBusinessService
+        .getAllAnswersByQuestion(questionUuid, userSession, cursor, limit);
 
-      AnswerDetailsResponse answerDetailsResponse = new AnswerDetailsResponse().id(answerUuid)
-          .answerContent(answerContent).questionContent(questionContent);
-
-      answerDetailsResponseList.add(answerDetailsResponse);
+    for (AnswerSummary answer : answersPage.getItems()) {
+      answerDetailsResponseList.add(toAnswerDetailsResponse(answer));
     }
 
-    return new ResponseEntity<List<AnswerDetailsResponse>>(answerDetailsResponseList,
+    HttpHeaders headers = new HttpHeaders();
+    if (answersPage.getNextCursor() != null) {
+      headers.add(QuestionController.NEXT_CURSOR_HEADER, answersPage.getNextCursor().encode());
+    }
+    return new ResponseEntity<List<AnswerDetailsResponse>>(answerDetailsResponseList, headers,
         HttpStatus.OK);
   }
+
+  /**
+   * Stream All Answers to a question
+   * @param questionUuid  - accepts the question ID from the path passed on as a variable
+   * @param userSession   - accepts session of signed in user, resolved from the access token
+   *
+   * Calls the AnswerBusinessService and passes the question ID whose answers are to be fetched.
+   * Selected with the "stream=true" parameter, in place of the paginated listing.
+   *
+   * @return Returns every answer of specific question, newest first, written to the response one
+   * at a time as they are read from the DB, after validating the user request
+   * @throws AuthorizationFailedException if invalid credentials are used by the requester
+   * @throws InvalidQuestionException if invalid question ID is passed
+   * @throws ServiceUnavailableException if too many listings are already being streamed
+   */
+
+  @RequestMapping(method = RequestMethod.GET, path = "answer/all/{questionId}",
+      params = "stream=true", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+
+  public ResponseEntity<StreamingResponseBody> streamAllAnswersToQuestion(
+      @PathVariable("questionId") String questionUuid,
+      final UserSession userSession)
+      throws AuthorizationFailedException, InvalidQuestionException, ServiceUnavailableException {
+
+    RowStream<AnswerSummary> answers = answerBusinessService
+        .streamAllAnswersByQuestion(questionUuid, userSession);
+
+    return new ResponseEntity<StreamingResponseBody>(
+        JsonArrayStream.of(objectMapper, answers, this::toAnswerDetailsResponse), HttpStatus.OK);
+  }
+
+  /**
+   * Package-private so that quora-bench can measure the conversion
+   *
+   * @param answer - accepts the AnswerSummary to be converted
+   * @return AnswerDetailsResponse holding the answer and the content of its question
+   */
+  AnswerDetailsResponse toAnswerDetailsResponse(final AnswerSummary answer) {
+    return new AnswerDetailsResponse().id(answer.getUuid())
+        .answerContent(answer.getAns()).questionContent(answer.getQuestionContent());
+  }
 }
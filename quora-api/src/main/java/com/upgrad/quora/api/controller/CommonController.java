@@ -2,6 +2,7 @@ package com.upgrad.quora.api.controller;
 
 import com.upgrad.quora.api.model.UserDetailsResponse;
 import com.upgrad.quora.service.business.UserBusinessService;
+import com.upgrad.quora.service.business.UserSession;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
@@ -21,7 +22,7 @@ public class CommonController {
   /** This methods helps in getting the user by submitting the user id.
    *
    * @param userUuid
-   * @param authorization
+   * @param userSession
    * @exception AuthorizationFailedException
    * @exception UserNotFoundException
    * @return ResponseEntity<UserDetailsResponse>(userDetailsResponse, HttpStatus.OK)
@@ -29,10 +30,10 @@ public class CommonController {
    * */
   public ResponseEntity<UserDetailsResponse> getUserById(
       @PathVariable("userId") final String userUuid,
-      @RequestHeader("authorization") final String authorization)
+      final UserSession userSession)
       throws AuthorizationFailedException, UserNotFoundException {
 
-    UserEntity userById = userBusinessService.getUserProfile(userUuid, authorization);
+    UserEntity userById = userBusinessService.getUserProfile(userUuid, userSession);
 
     UserDetailsResponse userDetailsResponse = new UserDetailsResponse();
 
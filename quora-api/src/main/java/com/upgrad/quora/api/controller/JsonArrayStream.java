@@ -0,0 +1,55 @@
+package com.upgrad.quora.api.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.service.common.RowStream;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * Writes a streamed listing as a JSON array, one element at a time. Only the row being written
+ * and the buffers of the generator and the servlet response are held in memory, whatever the
+ * length of the listing.
+ *
+ * The response has started by the time a listing fails part way, such as when it is abandoned
+ * after quora.streaming.timeout-seconds, so its status can no longer be changed. The array is left
+ * without its closing bracket instead, so that clients cannot take the rows written so far for the
+ * whole listing: the response is not valid JSON.
+ */
+final class JsonArrayStream {
+
+  private JsonArrayStream() {
+  }
+
+  /**
+   * @param objectMapper - mapper configured for the response models
+   * @param rows         - rows of the listing
+   * @param toResponse   - conversion of a row into its response model
+   * @return response body writing the converted rows as a JSON array
+   */
+  static <T, R> StreamingResponseBody of(final ObjectMapper objectMapper, final RowStream<T> rows,
+      final Function<? super T, R> toResponse) {
+    return outputStream -> {
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+        // The servlet container closes the response stream once the body is written
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Closing the generator would otherwise end the array of a listing that failed part way
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.writeStartArray();
+        rows.forEach(row -> {
+          try {
+            generator.writeObject(toResponse.apply(row));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+        generator.writeEndArray();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+  }
+}
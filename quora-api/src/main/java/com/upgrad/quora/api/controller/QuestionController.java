@@ -1,33 +1,52 @@
 package com.upgrad.quora.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.upgrad.quora.api.model.*;
+import com.upgrad.quora.service.business.IdProvider;
 import com.upgrad.quora.service.business.QuestionBusinessService;
+import com.upgrad.quora.service.business.QuestionSummary;
+import com.upgrad.quora.service.business.UserSession;
+import com.upgrad.quora.service.common.BulkItemResult;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.RowStream;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.BulkLimitExceededException;
+import com.upgrad.quora.service.exception.InvalidPageCursorException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/")
 public class QuestionController {
 
+  static final String NEXT_CURSOR_HEADER = "next-cursor";
+
   @Autowired
   private QuestionBusinessService questionBusinessService;
 
+  @Autowired
+  private IdProvider idProvider;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
   /**
    * Create Question Controller
    * @param questionRequest - accepts QuestionRequest object
-   * @param authorization   - accepts authorization code of signed in user
+   * @param userSession     - accepts session of signed in user, resolved from authorization code
    * @description Creates a QuestionEntity object. Calls QuestionBusinessService, passes the object
    * @return The UUID of the question created as part of QuestionResponse object
    * @exception AuthorizationFailedException if invalid credentials are used by the requester
@@ -36,46 +55,119 @@ public class QuestionController {
       consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<QuestionResponse> createQuestion(final QuestionRequest questionRequest,
-      @RequestHeader("authorization") final String authorization)
+      final UserSession userSession)
       throws AuthorizationFailedException {
 
     final QuestionEntity questionEntity = new QuestionEntity();
 
-    questionEntity.setUuid(UUID.randomUUID().toString());
+    questionEntity.setUuid(idProvider.nextId());
     questionEntity.setContent(questionRequest.getContent());
     questionEntity.setDateCreated(ZonedDateTime.now());
 
     final QuestionEntity createdQuestion = questionBusinessService
-        .createQuestion(questionEntity, authorization);
+        .createQuestion(questionEntity, userSession);
     QuestionResponse createQuestionResponse = new QuestionResponse().id(createdQuestion.getUuid())
         .status("QUESTION CREATED");
     return new ResponseEntity<QuestionResponse>(createQuestionResponse, HttpStatus.CREATED);
   }
 
+  /**
+   * Bulk Create Questions Controller
+   * @param questionRequests - accepts the list of QuestionRequest objects in the request body
+   * @param userSession      - accepts session of signed in user, resolved from authorization code
+   * @description Creates a QuestionEntity object for every question. Calls
+   * QuestionBusinessService once, passing all of them
+   * @return The UUID of every question created, or the reason it was not created, as part of
+   * QuestionBulkResponse objects in request order
+   * @exception AuthorizationFailedException if invalid credentials are used by the requester
+   * @exception BulkLimitExceededException if the request holds too many questions
+   */
+  @RequestMapping(method = RequestMethod.POST, path = "/question/bulk-create",
+      consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<List<QuestionBulkResponse>> createQuestions(
+      @RequestBody final List<QuestionRequest> questionRequests,
+      final UserSession userSession)
+      throws AuthorizationFailedException, BulkLimitExceededException {
+
+    final ZonedDateTime now = ZonedDateTime.now();
+    final List<QuestionEntity> questionEntities = new ArrayList<>();
+    for (QuestionRequest questionRequest : questionRequests) {
+      final QuestionEntity questionEntity = new QuestionEntity();
+      questionEntity.setUuid(idProvider.nextId());
+      questionEntity.setContent(questionRequest.getContent());
+      questionEntity.setDateCreated(now);
+      questionEntities.add(questionEntity);
+    }
+
+    final List<QuestionBulkResponse> questionBulkResponses = new ArrayList<>();
+    for (BulkItemResult result : questionBusinessService
+        .createQuestions(questionEntities, userSession)) {
+      questionBulkResponses.add(result.isCreated()
+          ? new QuestionBulkResponse().id(result.getUuid()).status("QUESTION CREATED")
+          : new QuestionBulkResponse().status("QUESTION NOT CREATED").code(result.getCode())
+              .message(result.getErrorMessage()));
+    }
+    return new ResponseEntity<List<QuestionBulkResponse>>(questionBulkResponses, HttpStatus.OK);
+  }
+
   /**
    * Get All Questions Controller
-   * @param authorization - accepts authorization code of signed in user.
-   * @description Calls the QuestionBusinessService, passes authorization as a parameter
-   * @return Returns all questions from the database after validating the user request
+   * @param userSession - accepts session of signed in user, resolved from authorization code
+   * @param cursor      - accepts the cursor returned with the previous page, absent for the first
+   * @param limit       - accepts the page size, capped by the service
+   * @description Calls the QuestionBusinessService, passes userSession as a parameter
+   * @return Returns one page of questions, newest first, after validating the user request. The
+   * cursor of the next page is returned in the "next-cursor" header when there is one.
    * @throws AuthorizationFailedException if invalid credentials are used by the requester
+   * @throws InvalidPageCursorException if the cursor cannot be decoded
    */
   @RequestMapping(method = RequestMethod.GET, path = "/question/all",
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<ArrayList> getAllQuestions(
-      @RequestHeader("authorization") final String authorization)
-      throws AuthorizationFailedException {
+      final UserSession userSession,
+      @RequestParam(value = "cursor", required = false) final String cursor,
+      @RequestParam(value = "limit", required = false) final Integer limit)
+      throws AuthorizationFailedException, InvalidPageCursorException {
 
-    final List<QuestionEntity> allQuestionsList = questionBusinessService
-        .getAllQuestions(authorization);
+    final KeysetPage<QuestionSummary> questionsPage = questionBusinessService
+        .getAllQuestions(userSession, cursor, limit);
     ArrayList<QuestionDetailsResponse> questionDetailsResponses = convertToQuestionDetailsResponseArray(
-        allQuestionsList);
-    return new ResponseEntity<>(questionDetailsResponses, HttpStatus.OK);
+        questionsPage.getItems());
+
+    HttpHeaders headers = new HttpHeaders();
+    if (questionsPage.getNextCursor() != null) {
+      headers.add(NEXT_CURSOR_HEADER, questionsPage.getNextCursor().encode());
+    }
+    return new ResponseEntity<>(questionDetailsResponses, headers, HttpStatus.OK);
+  }
+
+  /**
+   * Stream All Questions Controller
+   * @param userSession - accepts session of signed in user, resolved from authorization code
+   * @description Calls the QuestionBusinessService, passes userSession as a parameter. Selected
+   * with the "stream=true" parameter, in place of the paginated listing.
+   * @return Returns every question, newest first, written to the response one at a time as they
+   * are read from the DB, after validating the user request
+   * @throws AuthorizationFailedException if invalid credentials are used by the requester
+   * @throws ServiceUnavailableException if too many listings are already being streamed
+   */
+  @RequestMapping(method = RequestMethod.GET, path = "/question/all", params = "stream=true",
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAllQuestions(final UserSession userSession)
+      throws AuthorizationFailedException, ServiceUnavailableException {
+
+    final RowStream<QuestionSummary> questions = questionBusinessService
+        .streamAllQuestions(userSession);
+    return new ResponseEntity<>(
+        JsonArrayStream.of(objectMapper, questions, this::toQuestionDetailsResponse),
+        HttpStatus.OK);
   }
 
   /**
    * Edit Question Controller
    * @param questionEditRequest - accepts QuestionEditRequest Object
-   * @param authorization       - accepts authorization code of signed in user
+   * @param userSession         - accepts session of signed in user, resolved from authorization
    * @param questionId          - accepts questionId from path passed on as a variable
    * @description Updates the content of the question with the specified questionId, with the
    * content passed on in the EditQuestionRequest object
@@ -89,14 +181,14 @@ public class QuestionController {
   public ResponseEntity<QuestionEditResponse> editQuestionContent(
       final QuestionEditRequest questionEditRequest,
       @PathVariable("questionId") final String questionId,
-      @RequestHeader("authorization") final String authorization)
+      final UserSession userSession)
       throws AuthorizationFailedException, InvalidQuestionException {
     QuestionEntity questionEntity = new QuestionEntity();
     questionEntity.setUuid(questionId);
     questionEntity.setContent(questionEditRequest.getContent());
 
     QuestionEntity updatedQuestion = questionBusinessService
-        .editQuestionContent(questionEntity, authorization);
+        .editQuestionContent(questionEntity, userSession);
     QuestionEditResponse questionEditResponse = new QuestionEditResponse()
         .id(updatedQuestion.getUuid())
         .status("QUESTION EDITED");
@@ -105,7 +197,7 @@ public class QuestionController {
 
   /**
    * Delete Question Controller
-   * @param authorization - accepts authorization code of signed in user
+   * @param userSession   - accepts session of signed in user, resolved from authorization code
    * @param questionId    - accepts questionId from path passed on as a variable
    * @description Calls the QuestionBusinessService and passes the questionId to be deleted
    * @return The UUID of the question updated as part of QuestionResponse object
@@ -115,9 +207,9 @@ public class QuestionController {
   @RequestMapping(method = RequestMethod.DELETE, path = "/question/delete/{questionId}")
   public ResponseEntity<QuestionDeleteResponse> deleteQuestion(
       @PathVariable("questionId") final String questionId,
-      @RequestHeader("authorization") final String authorization)
+      final UserSession userSession)
       throws AuthorizationFailedException, InvalidQuestionException {
-    String deletedQuestionId = questionBusinessService.deleteQuestion(questionId, authorization);
+    String deletedQuestionId = questionBusinessService.deleteQuestion(questionId, userSession);
     QuestionDeleteResponse questionDeleteResponse = new QuestionDeleteResponse()
         .id(deletedQuestionId).status("QUESTION DELETED");
     return new ResponseEntity<QuestionDeleteResponse>(questionDeleteResponse, HttpStatus.OK);
@@ -126,7 +218,7 @@ public class QuestionController {
   /**
    * Get All Questions of a user
    * @param userId        - accepts the userId from the path passed on as a variable
-   * @param authorization - accepts authorization code of signed in user
+   * @param userSession   - accepts session of signed in user, resolved from authorization code
    * @description Calls the QuestionBusinessService and passed the userId whose questions
    * are to be fetched
    * @return Returns all questions of specific user from the DB after validating the user request
@@ -136,11 +228,11 @@ public class QuestionController {
   @RequestMapping(method = RequestMethod.GET, path = "question/all/{userId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
   public ResponseEntity<ArrayList> getAllQuestionsByUser(
       @PathVariable("userId") final String userId,
-      @RequestHeader("authorization") final String authorization)
+      final UserSession userSession)
       throws AuthorizationFailedException, UserNotFoundException {
 
-    final List<QuestionEntity> allQuestionsList = questionBusinessService
-        .getAllQuestionsByUser(userId, authorization);
+    final List<QuestionSummary> allQuestionsList = questionBusinessService
+        .getAllQuestionsByUser(userId, userSession);
 
     ArrayList<QuestionDetailsResponse> questionDetailsResponses = convertToQuestionDetailsResponseArray(
         allQuestionsList);
@@ -148,23 +240,31 @@ public class QuestionController {
   }
 
   /**
-   * Auxiliary (private) Methods
-   * @param allQuestionsList - accepts the List object of type QuestionEntity Converts into an
+   * Auxiliary Methods, package-private so that quora-bench can measure the conversion
+   * @param allQuestionsList - accepts the List object of type QuestionSummary Converts into an
    * @description ArrayList of type QuestionDetailsResponse so that it can form the ResponseEntity
    * of getAllQuestions() and getAllQuestionsByUser() Controller methods
    * @return ArrayList of type QuestionDetailsResponse
    */
-  private ArrayList<QuestionDetailsResponse> convertToQuestionDetailsResponseArray(
-      List<QuestionEntity> allQuestionsList) {
+  ArrayList<QuestionDetailsResponse> convertToQuestionDetailsResponseArray(
+      List<QuestionSummary> allQuestionsList) {
 
     ArrayList<QuestionDetailsResponse> questionDetailsResponses = new ArrayList<>();
-    for (QuestionEntity question : allQuestionsList) {
-      QuestionDetailsResponse questionDetails = new QuestionDetailsResponse();
-      questionDetails.setId(question.getUuid());
-      questionDetails.setContent(question.getContent());
-      questionDetailsResponses.add(questionDetails);
+    for (QuestionSummary question : allQuestionsList) {
+      questionDetailsResponses.add(toQuestionDetailsResponse(question));
     }
 
     return questionDetailsResponses;
   }
+
+  /**
+   * @param question - accepts the QuestionSummary to be converted
+   * @return QuestionDetailsResponse holding the id and content of the question
+   */
+  QuestionDetailsResponse toQuestionDetailsResponse(final QuestionSummary question) {
+    QuestionDetailsResponse questionDetails = new QuestionDetailsResponse();
+    questionDetails.setId(question.getUuid());
+    questionDetails.setContent(question.getContent());
+    return questionDetails;
+  }
 }
@@ -4,12 +4,14 @@ import com.upgrad.quora.api.model.SigninResponse;
 import com.upgrad.quora.api.model.SignoutResponse;
 import com.upgrad.quora.api.model.SignupUserRequest;
 import com.upgrad.quora.api.model.SignupUserResponse;
+import com.upgrad.quora.service.business.IdProvider;
+import com.upgrad.quora.service.business.PasswordHashingExecutor;
 import com.upgrad.quora.service.business.UserBusinessService;
 import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthenticationFailedException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
 import com.upgrad.quora.service.exception.SignOutRestrictedException;
-import com.upgrad.quora.service.exception.SignUpRestrictedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -21,7 +23,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Base64;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/user")
@@ -30,21 +32,29 @@ public class UserController {
   @Autowired
   private UserBusinessService userBusinessService;
 
-  /** Signup method for endpoint "/user/signup"
+  @Autowired
+  private PasswordHashingExecutor passwordHashingExecutor;
+
+  @Autowired
+  private IdProvider idProvider;
+
+  /** Signup method for endpoint "/user/signup". The password is hashed on the password hashing
+   * pool, and the user is then created on its database pool. A SignUpRestrictedException thrown
+   * there completes the returned future.
    *
    * @param signupUserRequest
-   * @exception SignUpRestrictedException
+   * @exception ServiceUnavailableException - if the password hashing pool is saturated
    * @return ResponseEntity<SignupUserResponse>(userResponse, HttpStatus.CREATED)
    *
    * */
   @RequestMapping(method = RequestMethod.POST, path = "signup",
       consumes = MediaType.APPLICATION_JSON_UTF8_VALUE,
       produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-  public ResponseEntity<SignupUserResponse> userSignup(final SignupUserRequest signupUserRequest)
-      throws SignUpRestrictedException {
+  public CompletableFuture<ResponseEntity<SignupUserResponse>> userSignup(
+      final SignupUserRequest signupUserRequest) throws ServiceUnavailableException {
     final UserEntity userEntity = new UserEntity();
 
-    userEntity.setUuid(UUID.randomUUID().toString());
+    userEntity.setUuid(idProvider.nextId());
     userEntity.setFirstName(signupUserRequest.getFirstName());
     userEntity.setLastName(signupUserRequest.getLastName());
     userEntity.setUserName(signupUserRequest.getUserName());
@@ -57,43 +67,55 @@ public class UserController {
     userEntity.setRole("nonadmin");
     userEntity.setContactNumber(signupUserRequest.getContactNumber());
 
-    /** After setting the attributes of userEntity, pass it to signup() method, to add this object to a persistent context */
-    final UserEntity createdUserEntity = userBusinessService.signup(userEntity);
+    return passwordHashingExecutor.submit(() -> userBusinessService.hashPassword(userEntity),
+        hashedUserEntity -> {
+      /** After setting the attributes of userEntity, pass it to signup() method, to add this object to a persistent context */
+      final UserEntity createdUserEntity = userBusinessService.signup(hashedUserEntity);
 
-    /** Declaring an object of SignupUserResponse type and set its attributes using createdUserEntity. */
-    SignupUserResponse userResponse = new SignupUserResponse().id(createdUserEntity.getUuid())
-        .status("USER SUCCESSFULLY REGISTERED");
+      /** Declaring an object of SignupUserResponse type and set its attributes using createdUserEntity. */
+      SignupUserResponse userResponse = new SignupUserResponse().id(createdUserEntity.getUuid())
+          .status("USER SUCCESSFULLY REGISTERED");
 
-    return new ResponseEntity<SignupUserResponse>(userResponse, HttpStatus.CREATED);
+      return new ResponseEntity<SignupUserResponse>(userResponse, HttpStatus.CREATED);
+    });
   }
 
-  /** SignIn method for endpoint "/user/signin".
+  /** SignIn method for endpoint "/user/signin". The user is looked up on the request thread, the
+   * password is checked on the password hashing pool, and the session is then created on its
+   * database pool. An AuthenticationFailedException thrown on the pools completes the returned
+   * future.
    *
    * @param authorization - Authorization contains of the base64 encoded username and password in
    *                      the format username:password and is "Basic" is prepend before that.
-   * @exception AuthenticationFailedException
+   * @exception AuthenticationFailedException - if the username does not exist
+   * @exception ServiceUnavailableException - if the password hashing pool is saturated
    * @return ResponseEntity<SigninResponse>(signinResponse, headers, HttpStatus.OK)
    *
    * */
   @RequestMapping(method = RequestMethod.POST, path = "signin", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-  public ResponseEntity<SigninResponse> signin(
+  public CompletableFuture<ResponseEntity<SigninResponse>> signin(
       @RequestHeader("authorization") final String authorization)
-      throws AuthenticationFailedException {
+      throws AuthenticationFailedException, ServiceUnavailableException {
     byte[] decoded = Base64.getDecoder().decode(authorization.split("Basic ")[1]);
     String decodedText = new String(decoded);
     String[] decodedArray = decodedText.split(":");
 
-    UserAuthEntity userAuthToken = userBusinessService.signin(decodedArray[0], decodedArray[1]);
+    final UserEntity userEntity = userBusinessService.getSigninUser(decodedArray[0]);
+
+    return passwordHashingExecutor.submit(
+        () -> userBusinessService.verifyPassword(userEntity, decodedArray[1]), rehash -> {
+      UserAuthEntity userAuthToken = userBusinessService.signin(userEntity, rehash);
 
-    SigninResponse signinResponse = new SigninResponse();
+      SigninResponse signinResponse = new SigninResponse();
 
-    signinResponse.setId(userAuthToken.getUserId().getUuid());
-    signinResponse.setMessage("SIGNED IN SUCCESSFULLY");
+      signinResponse.setId(userAuthToken.getUserId().getUuid());
+      signinResponse.setMessage("SIGNED IN SUCCESSFULLY");
 
-    HttpHeaders headers = new HttpHeaders();
-    headers.add("access_token", userAuthToken.getAccessToken());
+      HttpHeaders headers = new HttpHeaders();
+      headers.add("access_token", userAuthToken.getAccessToken());
 
-    return new ResponseEntity<SigninResponse>(signinResponse, headers, HttpStatus.OK);
+      return new ResponseEntity<SigninResponse>(signinResponse, headers, HttpStatus.OK);
+    });
   }
 
   /** SignIn method for endpoint "/user/signout".
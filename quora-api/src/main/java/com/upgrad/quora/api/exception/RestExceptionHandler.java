@@ -69,4 +69,31 @@ public class RestExceptionHandler {
         new ErrorResponse().code(exe.getCode()).message(exe.getErrorMessage()), HttpStatus.NOT_FOUND
     );
   }
-}
\ No newline at end of file
+
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<ErrorResponse> serviceUnavailableException(
+      ServiceUnavailableException exe, WebRequest request) {
+    return new ResponseEntity<ErrorResponse>(
+        new ErrorResponse().code(exe.getCode()).message(exe.getErrorMessage()),
+        HttpStatus.SERVICE_UNAVAILABLE
+    );
+  }
+
+  @ExceptionHandler(InvalidPageCursorException.class)
+  public ResponseEntity<ErrorResponse> invalidPageCursorException(
+      InvalidPageCursorException exe, WebRequest request) {
+    return new ResponseEntity<ErrorResponse>(
+        new ErrorResponse().code(exe.getCode()).message(exe.getErrorMessage()),
+        HttpStatus.BAD_REQUEST
+    );
+  }
+
+  @ExceptionHandler(BulkLimitExceededException.class)
+  public ResponseEntity<ErrorResponse> bulkLimitExceededException(BulkLimitExceededException exe,
+      WebRequest request) {
+    return new ResponseEntity<ErrorResponse>(
+        new ErrorResponse().code(exe.getCode()).message(exe.getErrorMessage()),
+        HttpStatus.PAYLOAD_TOO_LARGE
+    );
+  }
+}
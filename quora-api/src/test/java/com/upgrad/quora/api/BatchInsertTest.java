@@ -0,0 +1,168 @@
+package com.upgrad.quora.api;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.batch.internal.BatchBuilderImpl;
+import org.hibernate.engine.jdbc.batch.spi.Batch;
+import org.hibernate.engine.jdbc.batch.spi.BatchKey;
+import org.hibernate.engine.jdbc.batch.spi.BatchObserver;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * JDBC batching test of the bulk inserts.
+ *
+ * Hibernate prepares the insert statement of a batch once and reuses it for every execution, so
+ * the statistics of the session factory cannot tell the batches apart. The batches are counted by
+ * a BatchBuilder observing their executions instead, and the calls to the pooled sequence by how
+ * far the sequence has moved.
+ *
+ * The bulk request commits its own transactions, so the created questions are deleted afterwards.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.jdbc.batch.builder=com.upgrad.quora.api.BatchInsertTest$CountingBatchBuilder")
+@AutoConfigureMockMvc
+public class BatchInsertTest {
+
+    //Not a multiple of the batch size, so that the last batch is only executed at commit
+    private static final int QUESTION_COUNT = 480;
+
+    //Allocation size of the pooled id sequences
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @After
+    public void deleteQuestions() {
+        jdbcTemplate.update("delete from question where content = 'batch_question'");
+    }
+
+    //This test case passes when the questions created in bulk are inserted in JDBC batches of hibernate.jdbc.batch_size rows, with their ids taken from the pooled
+    //sequence 50 at a time.
+    @Test
+    public void createQuestionsInBulkInBatches() throws Exception {
+        int batchSize = Integer.parseInt(entityManagerFactory.getProperties().get("hibernate.jdbc.batch_size").toString());
+        String questions = "[" + String.join(",", Collections.nCopies(QUESTION_COUNT, "{\"content\":\"batch_question\"}")) + "]";
+        //Resolves the access token beforehand, so that its lookup is not counted
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?limit=1").header("authorization", "database_accesstoken1"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        long sequenceValue = sequenceValue();
+        long batches = CountingBatchBuilder.EXECUTIONS.get();
+        mvc.perform(MockMvcRequestBuilders.post("/question/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1").content(questions))
+                .andExpect(status().isOk());
+        long sequenceCalls = (sequenceValue() - sequenceValue) / SEQUENCE_INCREMENT;
+
+        assertEquals(QUESTION_COUNT, statistics.getEntityInsertCount());
+        assertEquals((QUESTION_COUNT + batchSize - 1) / batchSize, CountingBatchBuilder.EXECUTIONS.get() - batches);
+        //The ids left over by earlier inserts may save a call, and the first call to a sequence never called before returns 1, which Hibernate calls it again for
+        long pools = (QUESTION_COUNT + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+        assertTrue(sequenceCalls >= pools - 1 && sequenceCalls <= pools + 1);
+        //One insert statement, reused by every batch, and one statement per sequence call
+        assertEquals(1 + sequenceCalls, statistics.getPrepareStatementCount());
+    }
+
+    //Value the next call to the question sequence starts after. The first call to a sequence returns its start value itself.
+    private long sequenceValue() {
+        return jdbcTemplate.queryForObject("select case when is_called then last_value else last_value - " + SEQUENCE_INCREMENT + " end from question_id_seq", Long.class);
+    }
+
+    //Counts the executions of the JDBC batches which hold statements. The batches are also executed at every flush, when they are usually empty.
+    public static class CountingBatchBuilder extends BatchBuilderImpl {
+
+        static final AtomicLong EXECUTIONS = new AtomicLong();
+
+        @Override
+        public Batch buildBatch(final BatchKey key, final JdbcCoordinator jdbcCoordinator) {
+            return new CountingBatch(super.buildBatch(key, jdbcCoordinator));
+        }
+    }
+
+    private static class CountingBatch implements Batch, BatchObserver {
+
+        private final Batch batch;
+
+        private int pendingStatements;
+
+        CountingBatch(final Batch batch) {
+            this.batch = batch;
+            batch.addObserver(this);
+        }
+
+        @Override
+        public BatchKey getKey() {
+            return batch.getKey();
+        }
+
+        @Override
+        public void addObserver(final BatchObserver observer) {
+            batch.addObserver(observer);
+        }
+
+        @Override
+        public PreparedStatement getBatchStatement(final String sql, final boolean callable) {
+            return batch.getBatchStatement(sql, callable);
+        }
+
+        @Override
+        public void addToBatch() {
+            pendingStatements++;
+            batch.addToBatch();
+        }
+
+        @Override
+        public void execute() {
+            batch.execute();
+        }
+
+        @Override
+        public void release() {
+            batch.release();
+        }
+
+        @Override
+        public void batchExplicitlyExecuted() {
+            executed();
+        }
+
+        @Override
+        public void batchImplicitlyExecuted() {
+            executed();
+        }
+
+        private void executed() {
+            if (pendingStatements > 0) {
+                CountingBatchBuilder.EXECUTIONS.incrementAndGet();
+                pendingStatements = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.upgrad.quora.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.ParameterTranslations;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.metamodel.EntityType;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Query plan regression test for the named queries of the entities.
+ *
+ * The test seeds the database with a large synthetic dataset inside a transaction, explains every
+ * named query and native named query declared on an entity with sample parameter values, and
+ * rolls everything back. A query fails the test when its plan reads one of the seeded tables with a
+ * sequential scan, or when the estimated cost of the plan exceeds MAX_PLAN_COST or its entry in
+ * PLAN_COSTS.
+ *
+ * The plans, with the actual timings and buffers of EXPLAIN (ANALYZE, BUFFERS), are written to
+ * target/query-plans for review.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+
+public class NamedQueryPlanTest {
+
+    private static final Path PLAN_DIRECTORY = Paths.get("target", "query-plans");
+
+    private static final double MAX_PLAN_COST = 1000;
+
+    private static final int USERS = 20000;
+    private static final int SESSIONS = 100000;
+    private static final int QUESTIONS = 100000;
+    private static final int ANSWERS = 200000;
+
+    private static final Set<String> SEEDED_TABLES = new HashSet<>(Arrays.asList("users", "user_auth", "question", "answer"));
+
+    //Rows of the synthetic dataset take ids from 1000000 on, clear of the test data and the sequences.
+    //Sessions expire over a window from two days ago on, and every tenth session was signed out in the last four days.
+    private static final String[] SEED_STATEMENTS = {
+        "insert into users(id, uuid, firstname, lastname, username, email, password, salt, role) "
+            + "select 1000000 + i, md5('plan_user' || i)::uuid, 'plan_firstname', 'plan_lastname', 'plan_user' || i, 'plan_user' || i || '@example.com', 'plan_password', 'plan_salt', 'nonadmin' "
+            + "from generate_series(0, " + (USERS - 1) + ") i",
+        "insert into user_auth(id, uuid, user_id, access_token, access_token_digest, expires_at, login_at, logout_at) "
+            + "select 1000000 + i, md5('plan_session' || i)::uuid, 1000000 + i % " + USERS + ", 'plan_token' || i, sha256(convert_to('plan_token' || i, 'UTF8')), "
+            + "now() - interval '48 hours' + (i % 1000) * interval '1 hour', now() - interval '30 days', "
+            + "case when i % 10 = 0 then now() - (i % 96) * interval '1 hour' end "
+            + "from generate_series(0, " + (SESSIONS - 1) + ") i",
+        "insert into question(id, uuid, content, date, user_id) "
+            + "select 1000000 + i, md5('plan_question' || i)::uuid, 'plan_question' || i, timestamp '2018-01-01' + i * interval '1 minute', 1000000 + i % " + USERS + " "
+            + "from generate_series(0, " + (QUESTIONS - 1) + ") i",
+        "insert into answer(id, uuid, ans, date, user_id, question_id) "
+            + "select 1000000 + i, md5('plan_answer' || i)::uuid, 'plan_answer' || i, timestamp '2018-01-01' + i * interval '1 minute', 1000000 + i % " + USERS + ", 1000000 + i % " + QUESTIONS + " "
+            + "from generate_series(0, " + (ANSWERS - 1) + ") i",
+        "analyze users",
+        "analyze user_auth",
+        "analyze question",
+        "analyze answer"
+    };
+
+    //Sample value of every query parameter, selected from the synthetic dataset. A parameter shared by several
+    //queries takes the same value in all of them, unless a value is given for "queryName.parameter".
+    private static final Map<String, String> SAMPLE_VALUES = new HashMap<>();
+
+    static {
+        SAMPLE_VALUES.put("uuid", "select uuid from users where id = 1004242");
+        SAMPLE_VALUES.put("uuids", "select uuid from question where id = 1004242");
+        SAMPLE_VALUES.put("answerUuid", "select uuid from answer where id = 1004242");
+        SAMPLE_VALUES.put("username", "select username from users where id = 1004242");
+        SAMPLE_VALUES.put("email", "select email from users where id = 1004242");
+        SAMPLE_VALUES.put("user", "select 1004242");
+        SAMPLE_VALUES.put("question", "select 1004242");
+        SAMPLE_VALUES.put("id", "select 1004242");
+        SAMPLE_VALUES.put("date", "select date from question where id = 1004242");
+        SAMPLE_VALUES.put("digest", "select access_token_digest from user_auth where id = 1004242");
+        SAMPLE_VALUES.put("logoutAt", "select now()");
+        SAMPLE_VALUES.put("now", "select now()");
+        SAMPLE_VALUES.put("since", "select now() - interval '10 minutes'");
+        SAMPLE_VALUES.put("cutoff", "select now() - interval '24 hours'");
+        SAMPLE_VALUES.put("batchSize", "select 500");
+        SAMPLE_VALUES.put("getQuestionByUuid.uuid", "select uuid from question where id = 1004242");
+        SAMPLE_VALUES.put("getAnswersByQuestionPageAfter.date", "select date from answer where id = 1104242");
+        SAMPLE_VALUES.put("getAnswersByQuestionPageAfter.id", "select 1104242");
+    }
+
+    //Rows fetched by the queries which are read a page at a time, as Hibernate appends "limit ?" for setMaxResults
+    private static final Map<String, Integer> PAGE_SIZES = new HashMap<>();
+
+    static {
+        PAGE_SIZES.put("getQuestionsFirstPage", 10);
+        PAGE_SIZES.put("getQuestionsPageAfter", 10);
+        PAGE_SIZES.put("getAnswersByQuestionFirstPage", 10);
+        PAGE_SIZES.put("getAnswersByQuestionPageAfter", 10);
+    }
+
+    //Cost allowed to the statements which touch a batch of rows instead of MAX_PLAN_COST: the session sweeper
+    //deletes up to batchSize sessions at a time, fetching every one of them from the heap
+    private static final Map<String, Double> PLAN_COSTS = new HashMap<>();
+
+    static {
+        PLAN_COSTS.put("deleteExpiredUserAuths", 2500.0);
+        PLAN_COSTS.put("deleteLoggedOutUserAuths", 2500.0);
+    }
+
+    private static final Pattern NATIVE_PARAMETER = Pattern.compile("(?<![:\\w]):(\\w+)");
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    //This test case passes when no named query scans a large table sequentially or exceeds the cost threshold.
+    @Test
+    public void namedQueryPlans() throws Exception {
+        final Map<String, PlannedQuery> queries = collectNamedQueries();
+        final List<String> violations = new ArrayList<>();
+        Files.createDirectories(PLAN_DIRECTORY);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                seed(connection);
+                final Map<String, Object> samples = selectSampleValues(connection);
+                for (PlannedQuery query : queries.values()) {
+                    final Object[] values = sampleValues(samples, query);
+                    //EXPLAIN ANALYZE executes the updates and deletes, which are undone before the next query
+                    final Savepoint savepoint = connection.setSavepoint();
+                    writePlan(query, explain(connection, "explain (analyze, buffers, format text) ", query.sql, values));
+                    connection.rollback(savepoint);
+                    final JsonNode plan = objectMapper.readTree(explain(connection, "explain (format json) ", query.sql, values)).get(0).get("Plan");
+                    checkPlan(query.name, plan, plan, violations);
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+
+        assertEquals("Plans written to " + PLAN_DIRECTORY.toAbsolutePath(), Collections.emptyList(), violations);
+    }
+
+    private Map<String, PlannedQuery> collectNamedQueries() {
+        final SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        final Map<String, PlannedQuery> queries = new TreeMap<>();
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            final Class<?> type = entity.getJavaType();
+            final List<NamedQuery> namedQueries = new ArrayList<>();
+            if (type.isAnnotationPresent(NamedQueries.class)) {
+                namedQueries.addAll(Arrays.asList(type.getAnnotation(NamedQueries.class).value()));
+            }
+            if (type.isAnnotationPresent(NamedQuery.class)) {
+                namedQueries.add(type.getAnnotation(NamedQuery.class));
+            }
+            for (NamedQuery namedQuery : namedQueries) {
+                queries.put(namedQuery.name(), translate(sessionFactory, namedQuery));
+            }
+
+            final List<NamedNativeQuery> nativeQueries = new ArrayList<>();
+            if (type.isAnnotationPresent(NamedNativeQueries.class)) {
+                nativeQueries.addAll(Arrays.asList(type.getAnnotation(NamedNativeQueries.class).value()));
+            }
+            if (type.isAnnotationPresent(NamedNativeQuery.class)) {
+                nativeQueries.add(type.getAnnotation(NamedNativeQuery.class));
+            }
+            for (NamedNativeQuery nativeQuery : nativeQueries) {
+                queries.put(nativeQuery.name(), translate(nativeQuery));
+            }
+        }
+        return queries;
+    }
+
+    //Translates the JPQL of a named query into the SQL Hibernate sends, with the name of the parameter at every placeholder
+    private PlannedQuery translate(final SessionFactoryImplementor sessionFactory, final NamedQuery namedQuery) {
+        final QueryTranslator translator = new ASTQueryTranslatorFactory()
+                .createQueryTranslator(namedQuery.name(), namedQuery.query(), Collections.emptyMap(), sessionFactory, null);
+        translator.compile(Collections.emptyMap(), false);
+        final List<String> statements = translator.collectSqlStrings();
+        assertEquals(namedQuery.name() + " runs as one statement", 1, statements.size());
+
+        String sql = statements.get(0);
+        final ParameterTranslations parameters = translator.getParameterTranslations();
+        final String[] names = new String[sql.length() - sql.replace("?", "").length()];
+        for (Object name : parameters.getNamedParameterNames()) {
+            for (int location : parameters.getNamedParameterSqlLocations((String) name)) {
+                names[location] = (String) name;
+            }
+        }
+        final List<String> parameterNames = new ArrayList<>(Arrays.asList(names));
+        if (PAGE_SIZES.containsKey(namedQuery.name())) {
+            sql = sql + " limit ?";
+            parameterNames.add(null);
+        }
+        return new PlannedQuery(namedQuery.name(), sql, parameterNames);
+    }
+
+    private PlannedQuery translate(final NamedNativeQuery nativeQuery) {
+        final Matcher matcher = NATIVE_PARAMETER.matcher(nativeQuery.query());
+        final List<String> parameterNames = new ArrayList<>();
+        while (matcher.find()) {
+            parameterNames.add(matcher.group(1));
+        }
+        return new PlannedQuery(nativeQuery.name(), matcher.replaceAll("?"), parameterNames);
+    }
+
+    private void seed(final Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String seedStatement : SEED_STATEMENTS) {
+                statement.execute(seedStatement);
+            }
+        }
+    }
+
+    private Map<String, Object> selectSampleValues(final Connection connection) throws SQLException {
+        final Map<String, Object> samples = new HashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> sample : SAMPLE_VALUES.entrySet()) {
+                try (ResultSet resultSet = statement.executeQuery(sample.getValue())) {
+                    resultSet.next();
+                    samples.put(sample.getKey(), resultSet.getObject(1));
+                }
+            }
+        }
+        return samples;
+    }
+
+    private Object[] sampleValues(final Map<String, Object> samples, final PlannedQuery query) {
+        final Object[] values = new Object[query.parameterNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            final String name = query.parameterNames.get(i);
+            if (name == null) {
+                values[i] = PAGE_SIZES.get(query.name);
+            } else if (samples.containsKey(query.name + "." + name)) {
+                values[i] = samples.get(query.name + "." + name);
+            } else if (samples.containsKey(name)) {
+                values[i] = samples.get(name);
+            } else {
+                throw new AssertionError("No sample value for the parameter " + name + " of " + query.name + ", add one to SAMPLE_VALUES");
+            }
+        }
+        return values;
+    }
+
+    private String explain(final Connection connection, final String explain, final String sql, final Object[] values) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(explain + sql)) {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            final StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private void checkPlan(final String queryName, final JsonNode root, final JsonNode node, final List<String> violations) {
+        final double maxCost = PLAN_COSTS.getOrDefault(queryName, MAX_PLAN_COST);
+        if (node == root && node.get("Total Cost").asDouble() > maxCost) {
+            violations.add(queryName + ": plan cost " + node.get("Total Cost").asDouble() + " exceeds " + maxCost);
+        }
+        if ("Seq Scan".equals(node.path("Node Type").asText()) && SEEDED_TABLES.contains(node.path("Relation Name").asText())) {
+            violations.add(queryName + ": sequential scan on " + node.get("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            checkPlan(queryName, root, child, violations);
+        }
+    }
+
+    private void writePlan(final PlannedQuery query, final String plan) throws IOException {
+        final String artifact = query.name + "\n\n" + query.sql + "\n\nParameters: " + query.parameterNames + "\n\n" + plan;
+        Files.write(PLAN_DIRECTORY.resolve(query.name + ".txt"), artifact.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class PlannedQuery {
+
+        private final String name;
+        private final String sql;
+        private final List<String> parameterNames;
+
+        PlannedQuery(final String name, final String sql, final List<String> parameterNames) {
+            this.name = name;
+            this.sql = sql;
+            this.parameterNames = parameterNames;
+        }
+    }
+}
@@ -26,7 +26,7 @@ public class AdminControllerTest {
     //This test case passes when you try to delete the user but the JWT token entered does not exist in the database.
     @Test
     public void deleteWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/admin/user/database_uuid4").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.delete("/admin/user/10000000-0000-4000-8000-000000001029").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -34,7 +34,7 @@ public class AdminControllerTest {
     //This test case passes when you try to delete the user but the role of the user corresponding to the JWT token entered is nonadmin.
     @Test
     public void deleteWithnonadminAsRole() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/admin/user/database_uuid4").header("authorization", "database_accesstoken1"))
+        mvc.perform(MockMvcRequestBuilders.delete("/admin/user/10000000-0000-4000-8000-000000001029").header("authorization", "database_accesstoken1"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
@@ -1,17 +1,32 @@
 package com.upgrad.quora.api.controller;
 
 
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -23,11 +38,17 @@ public class AnswerControllerTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
 
     //This test case passes when you try to create the answer but the JWT token entered does not exist in the database.
     @Test
     public void createAnswerWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.post("/question/database_question_uuid/answer/create?answer=my_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.post("/question/30000000-0000-4000-8000-000000001024/answer/create?answer=my_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -35,7 +56,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to create the answer but the user corresponding to the JWT token entered is signed out of the application.
     @Test
     public void createAnswerWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.post("/question/database_question_uuid/answer/create?answer=my_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.post("/question/30000000-0000-4000-8000-000000001024/answer/create?answer=my_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -48,10 +69,88 @@ public class AnswerControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
     }
 
+    //This test case passes when you try to create answers in bulk and every answer gets its own result, without failing the answers to existing questions.
+    @Test
+    @Transactional
+    public void createAnswersInBulk() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/answer/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1")
+                .content("[{\"questionId\":\"30000000-0000-4000-8000-000000001024\",\"answer\":\"bulk_answer1\"},{\"questionId\":\"non_existing_question_uuid\",\"answer\":\"bulk_answer2\"},"
+                        + "{\"questionId\":\"30000000-0000-4000-8000-000000001024\",\"answer\":\" \"},{\"questionId\":\"30000000-0000-4000-8000-000000001024\",\"answer\":\"bulk_answer3\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(4))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("ANSWER CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("ANSWER NOT CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].code").value("QUES-001"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].status").value("ANSWER NOT CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].code").value("ANS-002"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[3].status").value("ANSWER CREATED"));
+
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(5));
+    }
+
+    //This test case passes when you try to create answers in bulk and one of them cannot be inserted, as PostgreSQL does not store zero bytes in text. Only that answer fails,
+    //next to the answer to a question which does not exist, though all the other answers are inserted in the same transaction first. The request commits its own
+    //transactions, so the created answers are deleted afterwards.
+    @Test
+    public void createAnswersInBulkWithFailingAnswer() throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/answer/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1")
+                .content("[{\"questionId\":\"30000000-0000-4000-8000-000000001024\",\"answer\":\"bulk_answer1\"},{\"questionId\":\"non_existing_question_uuid\",\"answer\":\"bulk_answer2\"},"
+                        + "{\"questionId\":\"30000000-0000-4000-8000-000000001024\",\"answer\":\"bulk\\u0000answer\"},{\"questionId\":\"30000000-0000-4000-8000-000000001025\",\"answer\":\"bulk_answer3\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("ANSWER CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("ANSWER NOT CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].code").value("QUES-001"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].status").value("ANSWER NOT CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].code").value("GEN-001"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[3].status").value("ANSWER CREATED"))
+                .andReturn();
+        List<String> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[?(@.status == 'ANSWER CREATED')].id");
+        assertEquals(2, ids.size());
+        for (String id : ids) {
+            assertEquals(1, jdbcTemplate.update("delete from answer where uuid = ?::uuid", id));
+        }
+    }
+
+    //This test case passes when you try to create answers in bulk to a question whose uuid is entered in uppercase, which is the same question as its lowercase uuid. The test transaction is rolled back afterwards.
+    @Test
+    @Transactional
+    public void createAnswersInBulkWithUppercaseQuestionUuid() throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/question/create?content=my_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        String questionUuid = JsonPath.read(result.getResponse().getContentAsString(), "$.id");
+        mvc.perform(MockMvcRequestBuilders.post("/answer/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1")
+                .content("[{\"questionId\":\"" + questionUuid.toUpperCase() + "\",\"answer\":\"bulk_answer1\"},{\"questionId\":\"" + questionUuid + "\",\"answer\":\"bulk_answer2\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("ANSWER CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("ANSWER CREATED"));
+    }
+
+    //This test case passes when you try to create answers in bulk but the user corresponding to the JWT token entered is signed out of the application.
+    @Test
+    public void createAnswersInBulkWithSignedOutUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/answer/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3")
+                .content("[{\"questionId\":\"30000000-0000-4000-8000-000000001024\",\"answer\":\"bulk_answer\"}]"))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+
+    //This test case passes when the questions of answers created in bulk are looked up with a single SQL statement, however many answers refer to them.
+    @Test
+    @Transactional
+    public void createAnswersInBulkStatementCount() throws Exception {
+        assertEquals(1, countStatements(MockMvcRequestBuilders.post("/answer/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1")
+                .content("[{\"questionId\":\"30000000-0000-4000-8000-000000001024\",\"answer\":\"bulk_answer1\"},{\"questionId\":\"30000000-0000-4000-8000-000000001025\",\"answer\":\"bulk_answer2\"},"
+                        + "{\"questionId\":\"30000000-0000-4000-8000-000000001024\",\"answer\":\"bulk_answer3\"}]")));
+    }
+
     //This test case passes when you try to edit the answer but the JWT token entered does not exist in the database.
     @Test
     public void editAnswerWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/database_answer_uuid?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/40000000-0000-4000-8000-000000001024?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -59,7 +158,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to edit the answer and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void editAnswerWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/database_answer_uuid?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/40000000-0000-4000-8000-000000001024?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -75,7 +174,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to edit the answer and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in but the corresponding user is not the owner of the answer.
     @Test
     public void editAnswerWithoutOwnership() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/database_answer_uuid?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
+        mvc.perform(MockMvcRequestBuilders.put("/answer/edit/40000000-0000-4000-8000-000000001024?content=edited_answer").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
@@ -83,7 +182,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to delete the answer but the JWT token entered does not exist in the database.
     @Test
     public void deleteAnswerWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/database_answer_uuid").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/40000000-0000-4000-8000-000000001024").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -91,7 +190,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to delete the answer and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void deleteAnswerWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/database_answer_uuid").header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/40000000-0000-4000-8000-000000001024").header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -107,15 +206,74 @@ public class AnswerControllerTest {
     //This test case passes when you try to delete the answer and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in but the corresponding user is not the owner of the answer or he is not the admin.
     @Test
     public void deleteAnswerWithoutOwnership() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/database_answer_uuid").header("authorization", "database_accesstoken2"))
+        mvc.perform(MockMvcRequestBuilders.delete("/answer/delete/40000000-0000-4000-8000-000000001024").header("authorization", "database_accesstoken2"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
 
+    //This test case passes when you try to get all the answers posted for a specific question one page at a time, following the cursor returned with each page.
+    @Test
+    public void getAllAnswersToQuestionPageByPage() throws Exception {
+        MvcResult firstPage = mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024?limit=2").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("40000000-0000-4000-8000-000000001026"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").value("40000000-0000-4000-8000-000000001025"))
+                .andExpect(MockMvcResultMatchers.header().exists("next-cursor"))
+                .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024?limit=2").param("cursor", firstPage.getResponse().getHeader("next-cursor")).header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("40000000-0000-4000-8000-000000001024"))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("next-cursor"));
+    }
+
+    //This test case passes when you try to get all the answers posted for a specific question with a cursor that was not returned by the application.
+    @Test
+    public void getAllAnswersToQuestionWithInvalidCursor() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024?cursor=not_a_cursor").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("PAG-001"));
+    }
+
+    //This test case passes when you try to get all the answers posted for a specific question with a cursor whose id is out of the range of the answer ids, in either direction.
+    @Test
+    public void getAllAnswersToQuestionWithOutOfRangeCursor() throws Exception {
+        for (String id : new String[]{"2147483648", "-2147483649"}) {
+            String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(("2018-09-17T13:07:02.070Z," + id).getBytes(StandardCharsets.UTF_8));
+            mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024").param("cursor", cursor).header("authorization", "database_accesstoken1"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(MockMvcResultMatchers.jsonPath("code").value("PAG-001"));
+        }
+    }
+
+    //This test case passes when you try to stream all the answers posted for a specific question and the user corresponding to the JWT token entered is signed in.
+    @Test
+    public void streamAllAnswersToQuestion() throws Exception {
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024?stream=true").header("authorization", "database_accesstoken1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("40000000-0000-4000-8000-000000001026"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].questionContent").value("database_question_content"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].id").value("40000000-0000-4000-8000-000000001024"));
+    }
+
+    //This test case passes when you try to stream all the answers posted for a specific question which does not exist in the database.
+    @Test
+    public void streamAllAnswersToNonExistingQuestion() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/non_existing_question_uuid?stream=true").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
+    }
+
     //This test case passes when you try to get all the answers posted for a specific question but the JWT token entered does not exist in the database.
     @Test
     public void getAllAnswersToQuestionWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -123,7 +281,7 @@ public class AnswerControllerTest {
     //This test case passes when you try to get all the answers posted for a specific question and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void getAllAnswersToQuestionWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024").header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -136,5 +294,25 @@ public class AnswerControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
     }
 
+    //This test case passes when getting a page of answers runs one SQL statement for the question and one for the answers, without loading the authors of the question and answers.
+    @Test
+    public void getAllAnswersToQuestionStatementCount() throws Exception {
+        assertEquals(2, countStatements(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024").header("authorization", "database_accesstoken1")));
+    }
 
+    //This test case passes when the ownership check of an answer delete runs a single SQL statement, without loading the owner or the question of the answer.
+    @Test
+    public void deleteAnswerWithoutOwnershipStatementCount() throws Exception {
+        assertEquals(1, countStatements(MockMvcRequestBuilders.delete("/answer/delete/40000000-0000-4000-8000-000000001024").header("authorization", "database_accesstoken2")));
+    }
+
+    //Runs the request twice and returns the number of SQL statements prepared by the second run, once the access token is in the session cache.
+    private long countStatements(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        mvc.perform(requestBuilder);
+        statistics.clear();
+        mvc.perform(requestBuilder);
+        return statistics.getPrepareStatementCount();
+    }
 }
@@ -0,0 +1,46 @@
+package com.upgrad.quora.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.service.common.RowStream;
+import org.junit.Test;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class JsonArrayStreamTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    //This test case passes when every row of a listing is written as an element of a JSON array.
+    @Test
+    public void writeListing() throws Exception {
+        final RowStream<String> rows = action -> {
+            action.accept("row1");
+            action.accept("row2");
+        };
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonArrayStream.of(objectMapper, rows, Function.identity()).writeTo(outputStream);
+        assertEquals("[\"row1\",\"row2\"]", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    //This test case passes when a listing that fails part way is left without the closing bracket of its array, so that it is not valid JSON.
+    @Test
+    public void writeListingFailingPartWay() throws Exception {
+        final RowStream<String> rows = action -> {
+            action.accept("row1");
+            throw new TransactionTimedOutException("Listing was not read within 1 seconds");
+        };
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            JsonArrayStream.of(objectMapper, rows, Function.identity()).writeTo(outputStream);
+            fail("The failure of the listing was not passed on");
+        } catch (TransactionTimedOutException e) {
+            assertEquals("[\"row1\"", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.upgrad.quora.api.controller;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+//A user whose password is stored in the legacy hex hash format, like database_username5 of quora_test.sql. It is created for a
+//single test case and deleted with its sessions afterwards, as signing in commits a session and rehashes the password in place.
+final class LegacyHashUser {
+
+    static final String PASSWORD = "database_password5";
+
+    //Hash and salt of PASSWORD stored for database_username5
+    private static final String LEGACY_HASH = "20168F27935E8075";
+    private static final String LEGACY_SALT = "ZGF0YWJhc2Vfc2FsdDU=";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String userName;
+
+    private final String uuid;
+
+    LegacyHashUser(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userName = "legacy_" + Long.toString(System.nanoTime(), 36);
+        this.uuid = UUID.randomUUID().toString();
+        jdbcTemplate.update("insert into users(uuid, firstname, lastname, username, email, password, salt, role) values (?::uuid, 'legacy_firstname', 'legacy_lastname', ?, ?, ?, ?, 'nonadmin')",
+                uuid, userName, userName, LEGACY_HASH, LEGACY_SALT);
+    }
+
+    String getUserName() {
+        return userName;
+    }
+
+    String getUuid() {
+        return uuid;
+    }
+
+    //The password column of the user as currently stored
+    String getStoredPassword() {
+        return jdbcTemplate.queryForObject("select password from users where username = ?", String.class, userName);
+    }
+
+    void delete() {
+        jdbcTemplate.update("delete from user_auth where user_id = (select id from users where username = ?)", userName);
+        jdbcTemplate.update("delete from users where username = ?", userName);
+    }
+}
@@ -1,17 +1,32 @@
 package com.upgrad.quora.api.controller;
 
 
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -23,6 +38,12 @@ public class QuestionControllerTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
 
     //This test case passes when you try to create the question but the JWT token entered does not exist in the database.
     @Test
@@ -40,6 +61,76 @@ public class QuestionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
 
+    //This test case passes when you try to create the question and the user corresponding to the JWT token entered is signed in. The question gets a time-ordered uuid. The test transaction is rolled back afterwards.
+    @Test
+    @Transactional
+    public void createQuestion() throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/question/create?content=my_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1"))
+                .andExpect(status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("status").value("QUESTION CREATED"))
+                .andReturn();
+        String id = JsonPath.read(result.getResponse().getContentAsString(), "$.id");
+        assertEquals(7, UUID.fromString(id).version());
+    }
+
+    //This test case passes when you try to create questions in bulk and the user corresponding to the JWT token entered is signed in. Every question gets its own result, and the created questions are listed. The test transaction is rolled back afterwards.
+    @Test
+    @Transactional
+    public void createQuestionsInBulk() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1")
+                .content("[{\"content\":\"bulk_question1\"},{\"content\":\" \"},{\"content\":\"bulk_question2\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("QUESTION CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("QUESTION NOT CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].code").value("QUES-002"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].status").value("QUESTION CREATED"));
+
+        mvc.perform(MockMvcRequestBuilders.get("/question/all/10000000-0000-4000-8000-000000001026").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(5));
+    }
+
+    //This test case passes when you try to create questions in bulk and one of them cannot be inserted, as PostgreSQL does not store zero bytes in text. Only that question fails,
+    //though all the questions are inserted in the same transaction first. The request commits its own transactions, so the created questions are deleted afterwards.
+    @Test
+    public void createQuestionsInBulkWithFailingQuestion() throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/question/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1")
+                .content("[{\"content\":\"bulk_question1\"},{\"content\":\"bulk_question2\"},{\"content\":\"bulk\\u0000question\"},{\"content\":\"bulk_question3\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("QUESTION CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status").value("QUESTION CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].status").value("QUESTION NOT CREATED"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].code").value("GEN-001"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[3].status").value("QUESTION CREATED"))
+                .andReturn();
+        List<String> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[?(@.status == 'QUESTION CREATED')].id");
+        assertEquals(3, ids.size());
+        for (String id : ids) {
+            assertEquals(1, jdbcTemplate.update("delete from question where uuid = ?::uuid", id));
+        }
+    }
+
+    //This test case passes when you try to create questions in bulk but the user corresponding to the JWT token entered is signed out of the application.
+    @Test
+    public void createQuestionsInBulkWithSignedOutUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3")
+                .content("[{\"content\":\"bulk_question\"}]"))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+
+    //This test case passes when you try to create more questions in bulk than a single request can hold.
+    @Test
+    public void createTooManyQuestionsInBulk() throws Exception {
+        String questions = "[" + String.join(",", Collections.nCopies(1001, "{\"content\":\"bulk_question\"}")) + "]";
+        mvc.perform(MockMvcRequestBuilders.post("/question/bulk-create").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1")
+                .content(questions))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("BLK-001"));
+    }
+
     //This test case passes when you try to get the detail of all the questions and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
     @Test
     public void getAllQuestions() throws Exception {
@@ -47,6 +138,61 @@ public class QuestionControllerTest {
                 .andExpect(status().isOk());
     }
 
+    //This test case passes when you try to get the detail of all the questions one page at a time, following the cursor returned with each page.
+    @Test
+    public void getAllQuestionsPageByPage() throws Exception {
+        MvcResult firstPage = mvc.perform(MockMvcRequestBuilders.get("/question/all?limit=2").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("30000000-0000-4000-8000-000000001026"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id").value("30000000-0000-4000-8000-000000001025"))
+                .andExpect(MockMvcResultMatchers.header().exists("next-cursor"))
+                .andReturn();
+
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?limit=2").param("cursor", firstPage.getResponse().getHeader("next-cursor")).header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("30000000-0000-4000-8000-000000001024"))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("next-cursor"));
+    }
+
+    //This test case passes when you try to get the detail of all the questions with a cursor that was not returned by the application.
+    @Test
+    public void getAllQuestionsWithInvalidCursor() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?cursor=not_a_cursor").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("PAG-001"));
+    }
+
+    //This test case passes when you try to stream the detail of all the questions and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
+    @Test
+    public void streamAllQuestions() throws Exception {
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.get("/question/all?stream=true&limit=1").header("authorization", "database_accesstoken1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("30000000-0000-4000-8000-000000001026"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].id").value("30000000-0000-4000-8000-000000001024"))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("next-cursor"));
+    }
+
+    //This test case passes when you try to stream the detail of all the questions but the user corresponding to the JWT token entered is signed out.
+    @Test
+    public void streamAllQuestionsWithSignedOutUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?stream=true").header("authorization", "database_accesstoken3"))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+
+    //This test case passes when you try to get the detail of all the questions without sending the authorization header.
+    @Test
+    public void getAllQuestionsWithoutAccessToken() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all"))
+                .andExpect(status().isBadRequest());
+    }
+
     //This test case passes when you try to get the detail of all the questions but the JWT token entered does not exist in the database.
     @Test
     public void getAllQuestionsWithNonExistingAccessToken() throws Exception {
@@ -63,10 +209,18 @@ public class QuestionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
 
+    //This test case passes when you try to get the detail of all the questions and the JWT token entered exists in the database but has expired.
+    @Test
+    public void getAllQuestionsWithExpiredAccessToken() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all").header("authorization", "database_accesstoken4"))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+
     //This test case passes when you try to edit the question but the JWT token entered does not exist in the database.
     @Test
     public void editQuestionWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/question/edit/database_question_uuid?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.put("/question/edit/30000000-0000-4000-8000-000000001024?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -74,7 +228,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to edit the question and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void editQuestionWithWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/question/edit/database_question_uuid?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.put("/question/edit/30000000-0000-4000-8000-000000001024?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -82,7 +236,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to edit the question and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in but the corresponding user is not the owner of the question.
     @Test
     public void editQuestionWithoutOwnership() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.put("/question/edit/database_question_uuid?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
+        mvc.perform(MockMvcRequestBuilders.put("/question/edit/30000000-0000-4000-8000-000000001024?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
@@ -98,7 +252,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to delete the question but the JWT token entered does not exist in the database.
     @Test
     public void deleteQuestionWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/database_question_uuid").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/30000000-0000-4000-8000-000000001024").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -106,7 +260,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to delete the question and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void deleteQuestionWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/database_question_uuid").header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/30000000-0000-4000-8000-000000001024").header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -114,7 +268,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to delete the question and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in but the corresponding user is not the owner of the question or he is not the admin.
     @Test
     public void deleteQuestionWithoutOwnership() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/database_question_uuid").header("authorization", "database_accesstoken2"))
+        mvc.perform(MockMvcRequestBuilders.delete("/question/delete/30000000-0000-4000-8000-000000001024").header("authorization", "database_accesstoken2"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-003"));
     }
@@ -128,10 +282,19 @@ public class QuestionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-001"));
     }
 
+    //This test case passes when you try to get all the questions posted by a specific user and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
+    @Test
+    public void getAllQuestionsByUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all/10000000-0000-4000-8000-000000001026").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == '30000000-0000-4000-8000-000000001024')].content").value("database_question_content"));
+    }
+
     //This test case passes when you try to get all the questions posted by a specific user but the JWT token entered does not exist in the database.
     @Test
     public void getAllQuestionsByUserWithNonExistingAccessToken() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.get("/question/all/database_uuid1").header("authorization", "non_existing_access_token"))
+        mvc.perform(MockMvcRequestBuilders.get("/question/all/10000000-0000-4000-8000-000000001026").header("authorization", "non_existing_access_token"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
@@ -139,7 +302,7 @@ public class QuestionControllerTest {
     //This test case passes when you try to get all the questions posted by a specific user and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void getAllQuestionsByUserWithSignedOutUser() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.get("/question/all/database_uuid1").header("authorization", "database_accesstoken3"))
+        mvc.perform(MockMvcRequestBuilders.get("/question/all/10000000-0000-4000-8000-000000001026").header("authorization", "database_accesstoken3"))
                 .andExpect(status().isForbidden())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
     }
@@ -152,5 +315,31 @@ public class QuestionControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("USR-001"));
     }
 
+    //This test case passes when getting a page of questions runs a single SQL statement, without loading the author of every question.
+    @Test
+    public void getAllQuestionsStatementCount() throws Exception {
+        assertEquals(1, countStatements(MockMvcRequestBuilders.get("/question/all").header("authorization", "database_accesstoken1")));
+    }
+
+    //This test case passes when getting the questions of a user runs one SQL statement for the user and one for the questions.
+    @Test
+    public void getAllQuestionsByUserStatementCount() throws Exception {
+        assertEquals(2, countStatements(MockMvcRequestBuilders.get("/question/all/10000000-0000-4000-8000-000000001026").header("authorization", "database_accesstoken1")));
+    }
 
+    //This test case passes when the ownership check of a question edit runs a single SQL statement, without loading the owner of the question.
+    @Test
+    public void editQuestionWithoutOwnershipStatementCount() throws Exception {
+        assertEquals(1, countStatements(MockMvcRequestBuilders.put("/question/edit/30000000-0000-4000-8000-000000001024?content=edited_question").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken")));
+    }
+
+    //Runs the request twice and returns the number of SQL statements prepared by the second run, once the access token is in the session cache.
+    private long countStatements(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        mvc.perform(requestBuilder);
+        statistics.clear();
+        mvc.perform(requestBuilder);
+        return statistics.getPrepareStatementCount();
+    }
 }
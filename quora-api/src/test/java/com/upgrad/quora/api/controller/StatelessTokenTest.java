@@ -0,0 +1,129 @@
+package com.upgrad.quora.api.controller;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.jayway.jsonpath.JsonPath;
+import com.upgrad.quora.service.business.JwtKeyring;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//These test cases run with "quora.jwt.stateless" enabled, where tokens are verified with a server-held key instead of being looked up in USER_AUTH.
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"quora.jwt.stateless=true", "quora.jwt.active-key-id=test",
+        "quora.jwt.keys=test:stateless_test_secret"})
+@AutoConfigureMockMvc
+public class StatelessTokenTest {
+
+    private static final int SIGNINS = 5;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JwtKeyring jwtKeyring;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LegacyHashUser legacyHashUser;
+
+    @Before
+    public void createLegacyHashUser() {
+        legacyHashUser = new LegacyHashUser(jdbcTemplate);
+    }
+
+    @After
+    public void deleteLegacyHashUser() {
+        legacyHashUser.delete();
+    }
+
+    //This test case passes when the same user signs in several times within a second and every signin gets a token of its own.
+    @Test
+    public void signinTwiceWithinOneSecond() throws Exception {
+        Set<String> accessTokens = new HashSet<>();
+        for (int i = 0; i < SIGNINS; i++) {
+            accessTokens.add(signin(legacyHashUser.getUserName(), LegacyHashUser.PASSWORD));
+        }
+        assertEquals(SIGNINS, accessTokens.size());
+    }
+
+    //This test case passes when the access token returned by a signin was issued now and expires 8 hours later, the length of a session.
+    @Test
+    public void signinTokenLifetime() throws Exception {
+        DecodedJWT accessToken = JWT.decode(signin(legacyHashUser.getUserName(), LegacyHashUser.PASSWORD));
+        assertTrue(Math.abs(accessToken.getIssuedAt().getTime() - System.currentTimeMillis()) < TimeUnit.MINUTES.toMillis(1));
+        assertEquals(TimeUnit.HOURS.toMillis(8), accessToken.getExpiresAt().getTime() - accessToken.getIssuedAt().getTime());
+    }
+
+    //This test case passes when the token of a user stops being accepted once an admin has deleted the user.
+    @Test
+    public void deletedUserToken() throws Exception {
+        String userName = "stateless_" + Long.toString(System.nanoTime(), 36);
+        MvcResult signupResult = mvc.perform(MockMvcRequestBuilders.post("/user/signup?firstName=a&lastName=a&userName=" + userName + "&emailAddress=" + userName + "&password=a&country=a&aboutMe=a&dob=a&contactNumber=a").contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted()).andReturn();
+        String userUuid = JsonPath.read(mvc.perform(asyncDispatch(signupResult))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), "id");
+        String accessToken = signin(userName, "a");
+        mvc.perform(MockMvcRequestBuilders.get("/userprofile/" + userUuid).header("authorization", accessToken))
+                .andExpect(status().isOk());
+
+        UserEntity admin = new UserEntity();
+        admin.setId(1025);
+        admin.setUuid("10000000-0000-4000-8000-000000001025");
+        admin.setRole("admin");
+        String adminAccessToken = jwtKeyring.generateToken(admin, ZonedDateTime.now(), ZonedDateTime.now().plusHours(8));
+        mvc.perform(MockMvcRequestBuilders.delete("/admin/user/" + userUuid).header("authorization", adminAccessToken))
+                .andExpect(status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.get("/question/all").header("authorization", accessToken))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
+    }
+
+    //This test case passes when you try to get the detail of all the questions with a token that is validly signed but has expired, which is rejected as in the default mode.
+    @Test
+    public void getAllQuestionsWithExpiredAccessToken() throws Exception {
+        UserEntity user = new UserEntity();
+        user.setId(1026);
+        user.setUuid("10000000-0000-4000-8000-000000001026");
+        user.setRole("nonadmin");
+        String accessToken = jwtKeyring.generateToken(user, ZonedDateTime.now().minusHours(9), ZonedDateTime.now().minusHours(1));
+        mvc.perform(MockMvcRequestBuilders.get("/question/all").header("authorization", accessToken))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+
+    private String signin(String userName, String password) throws Exception {
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + Base64.getEncoder().encodeToString((userName + ":" + password).getBytes())))
+                .andExpect(request().asyncStarted()).andReturn();
+        return mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("access_token");
+    }
+}
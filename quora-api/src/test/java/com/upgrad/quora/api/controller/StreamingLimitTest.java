@@ -0,0 +1,39 @@
+package com.upgrad.quora.api.controller;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//These test cases run with "quora.streaming.max-concurrent" at 0, so that every stream=true listing finds the limit reached.
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "quora.streaming.max-concurrent=0")
+@AutoConfigureMockMvc
+public class StreamingLimitTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    //This test case passes when you try to stream the detail of all the questions while too many listings are being streamed.
+    @Test
+    public void streamAllQuestionsOverLimit() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?stream=true").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("SRV-002"));
+    }
+
+    //This test case passes when you try to stream all the answers to a question while too many listings are being streamed.
+    @Test
+    public void streamAllAnswersToQuestionOverLimit() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/30000000-0000-4000-8000-000000001024?stream=true").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("SRV-002"));
+    }
+}
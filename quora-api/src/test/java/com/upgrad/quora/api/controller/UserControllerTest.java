@@ -1,16 +1,29 @@
 package com.upgrad.quora.api.controller;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -21,10 +34,27 @@ public class UserControllerTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LegacyHashUser legacyHashUser;
+
+    @Before
+    public void createLegacyHashUser() {
+        legacyHashUser = new LegacyHashUser(jdbcTemplate);
+    }
+
+    @After
+    public void deleteLegacyHashUser() {
+        legacyHashUser.delete();
+    }
+
     //This test case passes when you signup with a username that already exists in the database.
     @Test
     public void signupWithRepeatedUserName() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.post("/user/signup?firstName=a&lastName=a&userName=database_username&emailAddress=a&password=a&country=a&aboutMe=a&dob=a&contactNumber=a").contentType(MediaType.APPLICATION_JSON_UTF8))
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.post("/user/signup?firstName=a&lastName=a&userName=database_username&emailAddress=a&password=a&country=a&aboutMe=a&dob=a&contactNumber=a").contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isConflict())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("SGR-001"));
     }
@@ -32,11 +62,56 @@ public class UserControllerTest {
     //This test case passes when you signup with an email that already exists in the database.
     @Test
     public void signupWithRepeatedEmail() throws Exception {
-        mvc.perform(MockMvcRequestBuilders.post("/user/signup?firstName=a&lastName=a&userName=non_existing_username&emailAddress=database_email&password=a&country=a&aboutMe=a&dob=a&contactNumber=a").contentType(MediaType.APPLICATION_JSON_UTF8))
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.post("/user/signup?firstName=a&lastName=a&userName=non_existing_username&emailAddress=database_email&password=a&country=a&aboutMe=a&dob=a&contactNumber=a").contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isConflict())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("SGR-002"));
     }
 
+    //This test case passes when you signin with the correct password of a user whose password hash is stored in the legacy format, and the hash is then stored in the self-describing format.
+    @Test
+    public void signinWithLegacyPasswordHash() throws Exception {
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + Base64.getEncoder().encodeToString((legacyHashUser.getUserName() + ":" + LegacyHashUser.PASSWORD).getBytes())))
+                .andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("access_token"))
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value(legacyHashUser.getUuid()));
+        String storedPassword = legacyHashUser.getStoredPassword();
+        assertTrue(storedPassword, storedPassword.matches("\\$pbkdf2-sha512\\$i=\\d+,l=\\d+\\$[A-Za-z0-9+/=]+\\$[A-Za-z0-9+/=]+"));
+    }
+
+    //This test case passes when the access token returned by a signin was issued now and expires 8 hours later, the length of a session.
+    @Test
+    public void signinTokenLifetime() throws Exception {
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + Base64.getEncoder().encodeToString((legacyHashUser.getUserName() + ":" + LegacyHashUser.PASSWORD).getBytes())))
+                .andExpect(request().asyncStarted()).andReturn();
+        DecodedJWT accessToken = JWT.decode(mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("access_token"));
+        assertTrue(Math.abs(accessToken.getIssuedAt().getTime() - System.currentTimeMillis()) < TimeUnit.MINUTES.toMillis(1));
+        assertEquals(TimeUnit.HOURS.toMillis(8), accessToken.getExpiresAt().getTime() - accessToken.getIssuedAt().getTime());
+    }
+
+    //This test case passes when you signin with a wrong password.
+    @Test
+    public void signinWithWrongPassword() throws Exception {
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + Base64.getEncoder().encodeToString((legacyHashUser.getUserName() + ":wrong_password").getBytes())))
+                .andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATH-002"));
+    }
+
+    //This test case passes when you signin with a username that does not exist in the database, which is rejected before the password is hashed.
+    @Test
+    public void signinWithNonExistingUserName() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + Base64.getEncoder().encodeToString("non_existing_username:a".getBytes())))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATH-001"));
+    }
 
     //This test case passes when you try to signout but the JWT token entered does not exist in the database.
     @Test
@@ -45,4 +120,12 @@ public class UserControllerTest {
                 .andExpect(status().isUnauthorized())
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("SGR-001"));
     }
+
+    //This test case passes when you try to signout but the JWT token entered has expired.
+    @Test
+    public void signoutWithExpiredAccessToken() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/user/signout").header("authorization", "database_accesstoken4"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("SGR-001"));
+    }
 }
@@ -0,0 +1,45 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.RowStream;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
+import org.junit.Test;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+//These test cases admit listings to RowStreams without reading them, so no transaction manager is needed.
+public class RowStreamsTest {
+
+    private static final int TIMEOUT_SECONDS = 1;
+
+    private final RowStreams rowStreams = new RowStreams(500, 1, TIMEOUT_SECONDS);
+
+    private final RowStream<String> rows = action -> action.accept("row");
+
+    //This test case passes when a listing that is never read keeps its place until the timeout has passed, and then gives it back.
+    @Test
+    public void unreadListingGivesItsPlaceBack() throws Exception {
+        rowStreams.readOnly(rows);
+        try {
+            rowStreams.readOnly(rows);
+            fail("The second listing was admitted while the first one held the only place");
+        } catch (ServiceUnavailableException e) {
+            assertEquals("SRV-002", e.getCode());
+        }
+
+        TimeUnit.MILLISECONDS.sleep(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS) + 100);
+        rowStreams.readOnly(rows);
+    }
+
+    //This test case passes when a listing whose place was given back after the timeout can no longer be read.
+    @Test(expected = TransactionTimedOutException.class)
+    public void reclaimedListingIsNotRead() throws Exception {
+        final RowStream<String> abandoned = rowStreams.readOnly(rows);
+        TimeUnit.MILLISECONDS.sleep(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS) + 100);
+        rowStreams.readOnly(rows);
+        abandoned.forEach(row -> fail("The rows of a reclaimed listing were read"));
+    }
+}
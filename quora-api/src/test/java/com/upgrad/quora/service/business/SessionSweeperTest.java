@@ -0,0 +1,76 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.api.QuoraApiApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+//These test cases sweep USER_AUTH in batches of 2 within the test transaction, which joins the transactions of the batches,
+//so that the sessions of the test data are only deleted until it is rolled back.
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = QuoraApiApplication.class, properties = {"quora.session-sweeper.batch-size=2",
+        "quora.session-sweeper.batch-pause-ms=0", "quora.session-sweeper.retention-hours=24"})
+@Transactional
+public class SessionSweeperTest {
+
+    @Autowired
+    private SessionSweeper sessionSweeper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Before
+    public void insertSessions() {
+        jdbcTemplate.update("delete from user_auth");
+        //5 sessions expired beyond the retention period, in 3 batches of which the last one is short
+        for (int i = 0; i < 5; i++) {
+            insertSession("sweep_expired" + i, "now() - interval '48 hours'", "null");
+        }
+        //3 sessions signed out beyond the retention period, in 2 batches of which the last one is short
+        for (int i = 0; i < 3; i++) {
+            insertSession("sweep_signed_out" + i, "now() + interval '8 hours'", "now() - interval '48 hours'");
+        }
+        insertSession("sweep_active", "now() + interval '8 hours'", "null");
+        insertSession("sweep_recently_expired", "now() - interval '1 hour'", "null");
+        insertSession("sweep_recently_signed_out", "now() + interval '8 hours'", "now() - interval '1 hour'");
+    }
+
+    //This test case passes when the sweep deletes the sessions expired or signed out beyond the retention period, and keeps the active and recently ended ones.
+    @Test
+    public void sweepEndedSessions() {
+        sessionSweeper.sweep();
+        List<String> accessTokens = jdbcTemplate.queryForList("select access_token from user_auth", String.class);
+        assertEquals(new HashSet<>(Arrays.asList("sweep_active", "sweep_recently_expired", "sweep_recently_signed_out")), new HashSet<>(accessTokens));
+    }
+
+    //This test case passes when the sweep stops deleting once a batch comes back short, and counts the deleted sessions and the batches run.
+    @Test
+    public void sweepInBatches() {
+        double swept = meterRegistry.get("quora.sessions.swept").counter().count();
+        long batches = meterRegistry.get("quora.sessions.sweep.batch").timer().count();
+        sessionSweeper.sweep();
+        assertEquals(8, meterRegistry.get("quora.sessions.swept").counter().count() - swept, 0);
+        assertEquals(5, meterRegistry.get("quora.sessions.sweep.batch").timer().count() - batches);
+    }
+
+    private void insertSession(final String accessToken, final String expiresAt, final String logoutAt) {
+        jdbcTemplate.update("insert into user_auth(uuid, user_id, access_token, access_token_digest, expires_at, login_at, logout_at) "
+                + "values (md5(?)::uuid, 1026, ?, sha256(convert_to(?, 'UTF8')), " + expiresAt + ", now() - interval '72 hours', " + logoutAt + ")",
+                accessToken, accessToken, accessToken);
+    }
+}
@@ -0,0 +1,179 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.api.QuoraApiApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+//These test cases commit their changes, as the cache drops the entries of a session again once the transaction changing it commits.
+//Each one runs against a user and a session created for it, which are deleted afterwards. Unknown tokens are remembered for 1 second.
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = QuoraApiApplication.class, properties = "quora.session-cache.unknown-ttl-seconds=1")
+public class UserSessionCacheTest {
+
+    @Autowired
+    private UserSessionCache userSessionCache;
+
+    @Autowired
+    private UserBusinessService userBusinessService;
+
+    @Autowired
+    private AdminBusinessService adminBusinessService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String userName;
+
+    private String userUuid;
+
+    private String accessToken;
+
+    @Before
+    public void createSession() {
+        userName = "cache_" + Long.toString(System.nanoTime(), 36);
+        userUuid = UUID.randomUUID().toString();
+        accessToken = "cache_accesstoken_" + userName;
+        jdbcTemplate.update("insert into users(uuid, firstname, lastname, username, email, password, salt, role) values (?::uuid, 'cache_firstname', 'cache_lastname', ?, ?, 'cache_password', 'cache_salt', 'nonadmin')",
+                userUuid, userName, userName);
+        insertSession(accessToken);
+    }
+
+    @After
+    public void deleteSession() {
+        jdbcTemplate.update("delete from users where username = ?", userName);
+        userSessionCache.invalidateUser(userUuid);
+    }
+
+    //This test case passes when a session resolved once is served from the cache afterwards, without running any SQL statement.
+    @Test
+    public void getCachedSessionWithoutStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        UserSession userSession = userSessionCache.getSession(accessToken);
+        assertNotNull(userSession);
+        statistics.clear();
+        assertSame(userSession, userSessionCache.getSession(accessToken));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    //This test case passes when the session of a signed out token is dropped, even after another request cached it before the signout committed.
+    @Test
+    public void signoutEvictsSessionCachedBeforeCommit() {
+        assertNull(userSessionCache.getSession(accessToken).getLogoutAt());
+        transactionTemplate.execute(status -> {
+            try {
+                userBusinessService.signout(accessToken);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            //A concurrent request does not see the uncommitted signout, and caches the session again
+            assertNull(CompletableFuture.supplyAsync(() -> userSessionCache.getSession(accessToken)).join().getLogoutAt());
+            return null;
+        });
+        assertNotNull(userSessionCache.getSession(accessToken).getLogoutAt());
+    }
+
+    //This test case passes when the sessions of a deleted user are dropped, even after another request cached one before the deletion committed.
+    @Test
+    public void deleteUserEvictsSessionCachedBeforeCommit() {
+        assertNotNull(userSessionCache.getSession(accessToken));
+        UserSession adminSession = userSessionCache.getSession("database_accesstoken");
+        transactionTemplate.execute(status -> {
+            try {
+                adminBusinessService.deleteUser(adminSession, userUuid);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            //A concurrent request does not see the uncommitted deletion, and caches the session again
+            assertNotNull(CompletableFuture.supplyAsync(() -> userSessionCache.getSession(accessToken)).join());
+            return null;
+        });
+        assertNull(userSessionCache.getSession(accessToken));
+    }
+
+    //This test case passes when the first lookup of a session counts as a cache miss and the next one as a cache hit.
+    @Test
+    public void getSessionCountsHitsAndMisses() {
+        double misses = cacheGets("miss");
+        double hits = cacheGets("hit");
+        userSessionCache.getSession(accessToken);
+        userSessionCache.getSession(accessToken);
+        assertEquals(1, cacheGets("miss") - misses, 0);
+        assertEquals(1, cacheGets("hit") - hits, 0);
+    }
+
+    //This test case passes when a token found to be unknown is rejected again without running any SQL statement.
+    @Test
+    public void getUnknownTokenWithoutStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        assertNull(userSessionCache.getSession(accessToken + "_unknown"));
+        statistics.clear();
+        assertNull(userSessionCache.getSession(accessToken + "_unknown"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    //This test case passes when a token found to be unknown resolves once it exists in the DB and the unknown token has expired from the cache.
+    @Test
+    public void getUnknownTokenAfterExpiry() throws Exception {
+        String laterAccessToken = accessToken + "_later";
+        assertNull(userSessionCache.getSession(laterAccessToken));
+        insertSession(laterAccessToken);
+        assertNull(userSessionCache.getSession(laterAccessToken));
+        Thread.sleep(1100);
+        assertNotNull(userSessionCache.getSession(laterAccessToken));
+    }
+
+    //This test case passes when a token invalidated as it is created resolves right away, even after another request found it unknown before it was committed.
+    @Test
+    public void invalidateUnknownTokenBeforeCommit() {
+        String laterAccessToken = accessToken + "_later";
+        assertNull(userSessionCache.getSession(laterAccessToken));
+        transactionTemplate.execute(status -> {
+            insertSession(laterAccessToken);
+            userSessionCache.invalidate(laterAccessToken);
+            //A concurrent request does not see the uncommitted session, and remembers the token as unknown again
+            assertNull(CompletableFuture.supplyAsync(() -> userSessionCache.getSession(laterAccessToken)).join());
+            return null;
+        });
+        assertNotNull(userSessionCache.getSession(laterAccessToken));
+    }
+
+    private void insertSession(final String accessToken) {
+        jdbcTemplate.update("insert into user_auth(uuid, user_id, access_token, access_token_digest, expires_at, login_at) "
+                + "select md5(?)::uuid, id, ?, sha256(convert_to(?, 'UTF8')), now() + interval '8 hours', now() from users where username = ?",
+                accessToken, accessToken, accessToken, userName);
+    }
+
+    private double cacheGets(final String result) {
+        return meterRegistry.get("cache.gets").tags("cache", "userSessions", "result", result).functionCounter().count();
+    }
+}
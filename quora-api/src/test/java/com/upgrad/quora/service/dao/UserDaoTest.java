@@ -0,0 +1,96 @@
+package com.upgrad.quora.service.dao;
+
+import com.upgrad.quora.api.QuoraApiApplication;
+import com.upgrad.quora.service.business.UserSession;
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+//These test cases run against the USER_AUTH rows of quora_test.sql and rows they insert themselves, within the test transaction, which is rolled back afterwards.
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = QuoraApiApplication.class)
+@Transactional
+public class UserDaoTest {
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //This test case passes when the session of an access token is read with a single SQL statement, and neither the USER_AUTH row nor the user is loaded as an entity.
+    @Test
+    public void getUserSessionByTokenProjection() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        UserSession userSession = userDao.getUserSessionByToken("database_accesstoken");
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+
+        assertEquals(1025, userSession.getUserId());
+        assertEquals("10000000-0000-4000-8000-000000001025", userSession.getUserUuid());
+        assertEquals("admin", userSession.getRole());
+        assertEquals(2099, userSession.getExpiresAt().getYear());
+        assertNull(userSession.getLogoutAt());
+        assertNotNull(userDao.getUserSessionByToken("database_accesstoken3").getLogoutAt());
+    }
+
+    //This test case passes when an access token is looked up by the digest of the token, and not by the ACCESS_TOKEN column.
+    @Test
+    public void getUserSessionByTokenDigest() {
+        insertSession("digest_stored_accesstoken", "digest_looked_up_accesstoken");
+        assertNotNull(userDao.getUserSessionByToken("digest_looked_up_accesstoken"));
+        assertNull(userDao.getUserSessionByToken("digest_stored_accesstoken"));
+    }
+
+    //This test case passes when the digest of a created access token is the one the migration of the existing rows computes in SQL.
+    @Test
+    public void createAuthTokenWithDigest() {
+        UserAuthEntity userAuthEntity = new UserAuthEntity();
+        userAuthEntity.setUuid(UUID.randomUUID().toString());
+        userAuthEntity.setUserId(userDao.getUserReference(1026));
+        userAuthEntity.setAccessToken("digest_created_accesstoken");
+        userAuthEntity.setExpiresAt(ZonedDateTime.now().plusHours(8));
+        userAuthEntity.setLoginAt(ZonedDateTime.now());
+        userDao.createAuthToken(userAuthEntity);
+        entityManager.flush();
+        assertTrue(jdbcTemplate.queryForObject("select access_token_digest = sha256(convert_to(access_token, 'UTF8')) from user_auth where access_token = 'digest_created_accesstoken'", Boolean.class));
+        assertEquals(1026, userDao.getUserSessionByToken("digest_created_accesstoken").getUserId());
+    }
+
+    //This test case passes when a second row with the digest of an existing access token is rejected by the unique index.
+    @Test(expected = DuplicateKeyException.class)
+    public void insertDuplicateTokenDigest() {
+        insertSession("database_accesstoken1_copy", "database_accesstoken1");
+    }
+
+    private void insertSession(final String accessToken, final String digestedAccessToken) {
+        jdbcTemplate.update("insert into user_auth(uuid, user_id, access_token, access_token_digest, expires_at, login_at) "
+                + "values (md5(?)::uuid, 1026, ?, sha256(convert_to(?, 'UTF8')), now() + interval '8 hours', now())",
+                accessToken, accessToken, digestedAccessToken);
+    }
+}
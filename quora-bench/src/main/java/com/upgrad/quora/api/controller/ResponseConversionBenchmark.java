@@ -0,0 +1,79 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.api.model.AnswerDetailsResponse;
+import com.upgrad.quora.api.model.QuestionDetailsResponse;
+import com.upgrad.quora.service.business.AnswerSummary;
+import com.upgrad.quora.service.business.QuestionSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to convert a page of question and answer summaries into the response models of the
+ * controllers, for pages of several sizes.
+ *
+ * The benchmark lives in the package of the controllers to reach their package-private
+ * conversion methods. The controllers are created without their services, which the conversion
+ * does not use.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResponseConversionBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int size;
+
+  private final QuestionController questionController = new QuestionController();
+
+  private final AnswerController answerController = new AnswerController();
+
+  private List<QuestionSummary> questions;
+
+  private List<AnswerSummary> answers;
+
+  @Setup
+  public void setUp() {
+    final ZonedDateTime now = ZonedDateTime.now();
+    questions = new ArrayList<>(size);
+    answers = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      questions.add(new QuestionSummary(i, UUID.randomUUID().toString(),
+          "How do I pick the iteration count of PBKDF2 for question " + i + "?", now));
+      answers.add(new AnswerSummary(i, UUID.randomUUID().toString(),
+          "Measure the hashes per second of one core and work back from the signin rate " + i,
+          now, "How do I pick the iteration count of PBKDF2?"));
+    }
+  }
+
+  @Benchmark
+  public List<QuestionDetailsResponse> questions() {
+    return questionController.convertToQuestionDetailsResponseArray(questions);
+  }
+
+  @Benchmark
+  public List<AnswerDetailsResponse> answers() {
+    final List<AnswerDetailsResponse> responses = new ArrayList<>(answers.size());
+    for (AnswerSummary answer : answers) {
+      responses.add(answerController.toAnswerDetailsResponse(answer));
+    }
+    return responses;
+  }
+}
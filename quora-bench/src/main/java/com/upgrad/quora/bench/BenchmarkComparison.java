@@ -0,0 +1,97 @@
+package com.upgrad.quora.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JSON result files of JMH, usually of two commits, and prints the change of the
+ * score of every benchmark they have in common.
+ *
+ * Arguments: the result file before and after a change, and optionally the tolerance in percent
+ * (5 by default). A benchmark whose score got worse by more than the tolerance, and by more than
+ * the error margins of both scores, is marked as a regression, and the process exits with status
+ * 1 when there is any. Higher scores are better in throughput mode and lower ones in the time
+ * modes.
+ */
+public final class BenchmarkComparison {
+
+  private static final double DEFAULT_TOLERANCE_PERCENT = 5;
+
+  private BenchmarkComparison() {
+  }
+
+  public static void main(final String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: BenchmarkComparison <before.json> <after.json> [tolerance %]");
+      System.exit(2);
+    }
+    final Map<String, JsonNode> before = read(new File(args[0]));
+    final Map<String, JsonNode> after = read(new File(args[1]));
+    final double tolerance = args.length > 2
+        ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE_PERCENT;
+
+    int regressions = 0;
+    for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+      final JsonNode old = before.get(entry.getKey());
+      if (old == null) {
+        System.out.println(entry.getKey() + ": new");
+        continue;
+      }
+      final JsonNode oldMetric = old.get("primaryMetric");
+      final JsonNode newMetric = entry.getValue().get("primaryMetric");
+      final double oldScore = oldMetric.get("score").asDouble();
+      final double newScore = newMetric.get("score").asDouble();
+      final double change = (newScore - oldScore) / oldScore * 100;
+      final boolean higherIsBetter = "thrpt".equals(entry.getValue().get("mode").asText());
+      final double worse = higherIsBetter ? -change : change;
+      final boolean beyondError = Math.abs(newScore - oldScore)
+          > errorOf(oldMetric) + errorOf(newMetric);
+      final boolean regression = worse > tolerance && beyondError;
+      if (regression) {
+        regressions++;
+      }
+      System.out.println(String.format("%s: %.3f -> %.3f %s (%+.1f%%)%s", entry.getKey(),
+          oldScore, newScore, newMetric.get("scoreUnit").asText(), change,
+          regression ? " REGRESSION" : ""));
+    }
+    for (String benchmark : before.keySet()) {
+      if (!after.containsKey(benchmark)) {
+        System.out.println(benchmark + ": removed");
+      }
+    }
+    System.exit(regressions > 0 ? 1 : 0);
+  }
+
+  /**
+   * @return results by benchmark name and parameters, e.g. "JwtTokenBenchmark.signin" or
+   *     "ResponseSerializationBenchmark.answers {size=100}"
+   */
+  private static Map<String, JsonNode> read(final File file) throws IOException {
+    final Map<String, JsonNode> results = new LinkedHashMap<>();
+    for (JsonNode result : new ObjectMapper().readTree(file)) {
+      final String benchmark = result.get("benchmark").asText();
+      final Map<String, String> params = new TreeMap<>();
+      final Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+      while (fields.hasNext()) {
+        final Map.Entry<String, JsonNode> param = fields.next();
+        params.put(param.getKey(), param.getValue().asText());
+      }
+      final String name = benchmark.substring(benchmark.lastIndexOf('.',
+          benchmark.lastIndexOf('.') - 1) + 1);
+      results.put(params.isEmpty() ? name : name + " " + params, result);
+    }
+    return results;
+  }
+
+  private static double errorOf(final JsonNode metric) {
+    final double error = metric.path("scoreError").asDouble(0);
+    return Double.isNaN(error) ? 0 : error;
+  }
+}
@@ -0,0 +1,79 @@
+package com.upgrad.quora.bench;
+
+import org.openjdk.jmh.Main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Runs JMH with the given options and, unless a result file is
+ * given with -rf/-rff, writes the results as JSON to jmh-results/{commit}.json, named after the
+ * git commit the benchmarks are run on. Results of two commits are compared with
+ * BenchmarkComparison:
+ *
+ * <pre>
+ * java -jar quora-bench/target/benchmarks.jar
+ * java -cp quora-bench/target/benchmarks.jar com.upgrad.quora.bench.BenchmarkComparison \
+ *     jmh-results/{before}.json jmh-results/{after}.json
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+  private static final String RESULT_DIRECTORY = "jmh-results";
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final List<String> options = new ArrayList<>(Arrays.asList(args));
+    if (!options.contains("-rf")) {
+      options.add("-rf");
+      options.add("json");
+    }
+    if (!options.contains("-rff")) {
+      final File resultFile = new File(RESULT_DIRECTORY, commit() + ".json");
+      resultFile.getParentFile().mkdirs();
+      options.add("-rff");
+      options.add(resultFile.getPath());
+    }
+    Main.main(options.toArray(new String[0]));
+  }
+
+  /**
+   * @return abbreviated id of the checked out commit, suffixed with "-dirty" if the work tree has
+   *     changes, or "local" outside a git work tree
+   */
+  private static String commit() {
+    final String commit = git("rev-parse", "--short", "HEAD");
+    if (commit == null || commit.isEmpty()) {
+      return "local";
+    }
+    final String changes = git("status", "--porcelain", "--untracked-files=no");
+    return changes == null || changes.isEmpty() ? commit : commit + "-dirty";
+  }
+
+  private static String git(final String... args) {
+    final List<String> command = new ArrayList<>();
+    command.add("git");
+    command.addAll(Arrays.asList(args));
+    try {
+      final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+      final StringBuilder output = new StringBuilder();
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          output.append(line).append('\n');
+        }
+      }
+      return process.waitFor() == 0 ? output.toString().trim() : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.upgrad.quora.bench;
+
+import com.upgrad.quora.service.business.IdGenerator;
+import com.upgrad.quora.service.business.RandomIdGenerator;
+import com.upgrad.quora.service.business.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uuid generation per second with four threads generating at once, and the index pages touched by
+ * the inserts of each generator.
+ *
+ * The random and timeOrdered benchmarks compare UUID.randomUUID, which all threads share one
+ * SecureRandom for, with the time-ordered generator, which keeps its state per thread.
+ *
+ * The insertBatch benchmark models the leaf pages of a B-tree index over the UUID column: an index
+ * of existing uuids is cut into pages of PAGE_SIZE keys, and every batch of BATCH_SIZE new uuids
+ * counts the distinct pages they land in, reported as "pagesTouched". Every page touched has to be
+ * read into memory and written back, so random uuids dirty close to one page per insert while
+ * time-ordered uuids keep appending to the last page.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IdGeneratorBenchmark {
+
+  private static final int INDEX_SIZE = 1000000;
+  private static final int PAGE_SIZE = 100;
+  private static final int BATCH_SIZE = 1000;
+
+  @State(Scope.Benchmark)
+  public static class Generators {
+
+    private final IdGenerator random = new RandomIdGenerator();
+
+    private final IdGenerator timeOrdered = new TimeOrderedIdGenerator();
+  }
+
+  @State(Scope.Thread)
+  public static class Index {
+
+    @Param({"uuid-v4", "uuid-v7"})
+    private String algorithm;
+
+    private IdGenerator generator;
+
+    /** Lowest key of every page of the index */
+    private TreeSet<String> pages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      generator = "uuid-v4".equals(algorithm)
+          ? new RandomIdGenerator() : new TimeOrderedIdGenerator();
+
+      final List<String> keys = new ArrayList<>(INDEX_SIZE);
+      for (int i = 0; i < INDEX_SIZE; i++) {
+        keys.add(generator.generate().toString());
+      }
+      Collections.sort(keys);
+
+      pages = new TreeSet<>();
+      for (int i = 0; i < keys.size(); i += PAGE_SIZE) {
+        pages.add(keys.get(i));
+      }
+    }
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class PageCounters {
+
+    public long pagesTouched;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      pagesTouched = 0;
+    }
+  }
+
+  @Benchmark
+  @Threads(4)
+  public UUID random(final Generators generators) {
+    return generators.random.generate();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public UUID timeOrdered(final Generators generators) {
+    return generators.timeOrdered.generate();
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(BATCH_SIZE)
+  public int insertBatch(final Index index, final PageCounters counters) {
+    final Set<String> touched = new HashSet<>();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      final String key = index.generator.generate().toString();
+      final String page = index.pages.floor(key);
+      touched.add(page != null ? page : index.pages.first());
+    }
+    counters.pagesTouched += touched.size();
+    return touched.size();
+  }
+}
@@ -0,0 +1,83 @@
+package com.upgrad.quora.bench;
+
+import com.upgrad.quora.service.business.JwtKeyring;
+import com.upgrad.quora.service.business.JwtTokenProvider;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access tokens signed per second on a single thread.
+ *
+ * The signin benchmark creates a JwtTokenProvider for every token, as signin does when tokens are
+ * looked up in USER_AUTH: the key is the password hash of the user. The provider benchmark reuses
+ * one provider, which shows the cost of creating it. The keyring benchmark signs with the active
+ * key of a JwtKeyring, as signin does when "quora.jwt.stateless" is enabled, and also writes the
+ * user id and role claims.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtTokenBenchmark {
+
+  private static final String SECRET =
+      "$pbkdf2-sha512$i=1000,l=512$8Xt6jxoCI3MWsVaKY/1ySAp2qzlb2Z7P89+vDrb1o6U=$"
+          + "UFf1/tHKx0ZQf/X+0cqxH1B/9f7RyscUFf1/tHKx0ZQf/X+0cqxH1B/9f7RyscdGVzdA==";
+
+  private UserEntity user;
+
+  private JwtTokenProvider provider;
+
+  private JwtKeyring keyring;
+
+  private ZonedDateTime issuedAt;
+
+  private ZonedDateTime expiresAt;
+
+  @Setup
+  public void setUp() {
+    user = new UserEntity();
+    user.setId(1024);
+    user.setUuid(UUID.randomUUID().toString());
+    user.setRole("nonadmin");
+    user.setPassword(SECRET);
+
+    provider = new JwtTokenProvider(SECRET);
+    keyring = new JwtKeyring(true, "bench", "bench:" + SECRET);
+    issuedAt = ZonedDateTime.now();
+    expiresAt = issuedAt.plusHours(8);
+  }
+
+  @Benchmark
+  public String signin() {
+    return new JwtTokenProvider(user.getPassword())
+        .generateToken(user.getUuid(), issuedAt, expiresAt);
+  }
+
+  @Benchmark
+  public String provider() {
+    return provider.generateToken(user.getUuid(), issuedAt, expiresAt);
+  }
+
+  @Benchmark
+  public String keyring() {
+    return keyring.generateToken(user, issuedAt, expiresAt);
+  }
+}
@@ -0,0 +1,83 @@
+package com.upgrad.quora.bench;
+
+import com.upgrad.quora.service.business.PasswordCryptographyProvider;
+import com.upgrad.quora.service.business.PasswordHash;
+import com.upgrad.quora.service.business.Pbkdf2PasswordHashingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Password hashes per second on a single thread, i.e. per core, for a range of PBKDF2 iteration
+ * counts. Use it to pick "quora.password-hashing.pbkdf2.iterations" for the signin rate a server
+ * has to sustain: the password hashing pool runs one hashing thread per core.
+ *
+ * The keyFactory benchmark hashes through the JDK's PBKDF2WithHmacSHA512 key factory, as the
+ * password hashing did before the engine was introduced, and serves as the baseline. The encrypt
+ * benchmark goes through PasswordCryptographyProvider.encrypt as signup does, which adds making
+ * a salt and formatting the stored hash.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PasswordHashingBenchmark {
+
+  private static final String PASSWORD = "correct horse battery staple";
+
+  @Param({"1000", "10000", "100000"})
+  private int iterations;
+
+  @Param({"512"})
+  private int keyLength;
+
+  private Pbkdf2PasswordHashingEngine engine;
+
+  private PasswordCryptographyProvider provider;
+
+  private byte[] salt;
+
+  @Setup
+  public void setUp() {
+    engine = new Pbkdf2PasswordHashingEngine(iterations, keyLength);
+    provider = new PasswordCryptographyProvider(Collections.singletonList(engine),
+        engine.getAlgorithm());
+    salt = new byte[32];
+    new SecureRandom().nextBytes(salt);
+  }
+
+  @Benchmark
+  public PasswordHash engine() {
+    return engine.hash(PASSWORD, salt);
+  }
+
+  @Benchmark
+  public String[] encrypt() {
+    return provider.encrypt(PASSWORD);
+  }
+
+  @Benchmark
+  public byte[] keyFactory() throws Exception {
+    return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512")
+        .generateSecret(new PBEKeySpec(PASSWORD.toCharArray(), salt, iterations, keyLength))
+        .getEncoded();
+  }
+}
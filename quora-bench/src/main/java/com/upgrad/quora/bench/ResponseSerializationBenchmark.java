@@ -0,0 +1,72 @@
+package com.upgrad.quora.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.api.model.AnswerDetailsResponse;
+import com.upgrad.quora.api.model.QuestionDetailsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to serialize lists of QuestionDetailsResponse and AnswerDetailsResponse to JSON, as the
+ * listing endpoints write them, for lists of several sizes.
+ *
+ * The ObjectMapper is built by Jackson2ObjectMapperBuilder, which Spring Boot builds the
+ * application's ObjectMapper with, so it has the same modules and features.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResponseSerializationBenchmark {
+
+  @Param({"10", "100", "1000", "10000"})
+  private int size;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private List<QuestionDetailsResponse> questions;
+
+  private List<AnswerDetailsResponse> answers;
+
+  @Setup
+  public void setUp() {
+    questions = new ArrayList<>(size);
+    answers = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      questions.add(new QuestionDetailsResponse().id(UUID.randomUUID().toString())
+          .content("How do I pick the iteration count of PBKDF2 for question " + i + "?"));
+      answers.add(new AnswerDetailsResponse().id(UUID.randomUUID().toString())
+          .questionContent("How do I pick the iteration count of PBKDF2?")
+          .answerContent("Measure the hashes per second of one core and work back from the "
+              + "signin rate " + i));
+    }
+  }
+
+  @Benchmark
+  public byte[] questions() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(questions);
+  }
+
+  @Benchmark
+  public byte[] answers() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(answers);
+  }
+}
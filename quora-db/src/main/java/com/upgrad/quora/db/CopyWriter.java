@@ -0,0 +1,135 @@
+package com.upgrad.quora.db;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Streams rows into a table with COPY ... FROM STDIN, in the text format of COPY. Rows are
+ * buffered and sent to the server in blocks of about BUFFER_SIZE characters.
+ */
+final class CopyWriter implements AutoCloseable {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final CopyIn copyIn;
+
+  private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 4096);
+
+  private boolean rowStarted;
+
+  private long rows;
+
+  /**
+   * @param copyManager - COPY API of the connection
+   * @param table - table the rows are loaded into
+   * @param columns - columns of the table, in the order the fields of each row are written
+   */
+  CopyWriter(final CopyManager copyManager, final String table, final String... columns)
+      throws SQLException {
+    this.copyIn = copyManager.copyIn(
+        "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN");
+  }
+
+  CopyWriter field(final long value) {
+    separate();
+    buffer.append(value);
+    return this;
+  }
+
+  CopyWriter field(final String value) {
+    separate();
+    if (value == null) {
+      buffer.append("\\N");
+      return this;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          buffer.append("\\\\");
+          break;
+        case '\t':
+          buffer.append("\\t");
+          break;
+        case '\n':
+          buffer.append("\\n");
+          break;
+        case '\r':
+          buffer.append("\\r");
+          break;
+        default:
+          buffer.append(c);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @param epochMillis - instant written as a timestamp in the time zone of the JVM, as Hibernate
+   *     writes the ZonedDateTime attributes of the entities
+   */
+  CopyWriter timestamp(final long epochMillis) {
+    return field(new Timestamp(epochMillis).toString());
+  }
+
+  CopyWriter nullableTimestamp(final Long epochMillis) {
+    return epochMillis == null ? field((String) null) : timestamp(epochMillis);
+  }
+
+  /** Writes a bytea value in the hex format, with the backslash escaped for the text format */
+  CopyWriter bytes(final byte[] value) {
+    separate();
+    buffer.append("\\\\x");
+    for (byte b : value) {
+      buffer.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+    }
+    return this;
+  }
+
+  void endRow() throws SQLException {
+    buffer.append('\n');
+    rowStarted = false;
+    rows++;
+    if (buffer.length() >= BUFFER_SIZE) {
+      flush();
+    }
+  }
+
+  long getRows() {
+    return rows;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (!copyIn.isActive()) {
+      return;
+    }
+    try {
+      flush();
+      copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
+
+  private void separate() {
+    if (rowStarted) {
+      buffer.append('\t');
+    }
+    rowStarted = true;
+  }
+
+  private void flush() throws SQLException {
+    final byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+    copyIn.writeToCopy(bytes, 0, bytes.length);
+    buffer.setLength(0);
+  }
+}
@@ -0,0 +1,335 @@
+package com.upgrad.quora.db;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Loads a synthetic, production-shaped dataset into a migrated quora database through COPY, for
+ * benchmarks and query plan experiments. Run it with the dataset profile of quora-db:
+ *
+ * <pre>
+ * mvn -Pdataset -pl quora-db process-classes -Ddataset.users=1000000 \
+ *     -Ddataset.questions=10000000 -Ddataset.answers=100000000
+ * </pre>
+ *
+ * The volumes and the shape of the data are read from system properties:
+ * <ul>
+ *   <li>dataset.users, dataset.questions, dataset.answers, dataset.sessions - rows to add</li>
+ *   <li>dataset.days - questions are spread over this many days up to now</li>
+ *   <li>dataset.answer-skew - Zipf exponent of the answers per question: a few questions get
+ *   most of the answers and most get few or none</li>
+ *   <li>dataset.session-hours - sessions signed in over this many hours up to now; each lasts
+ *   8 hours and most are signed out before they expire, which leaves the mix of active, signed
+ *   out and expired sessions the session sweeper works through</li>
+ *   <li>dataset.password - password every generated user signs in with</li>
+ *   <li>dataset.seed - seed of the generated values, so that a dataset can be reproduced</li>
+ * </ul>
+ *
+ * Rows are added after the existing ones, and the id sequences are moved past them at the end.
+ * Uuids are time-ordered (version 7) from the creation time of their row, as the application
+ * generates them.
+ */
+public final class DatasetGenerator {
+
+  private static final long SESSION_MILLIS = TimeUnit.HOURS.toMillis(8);
+
+  private static final long MEAN_ANSWER_DELAY_MILLIS = TimeUnit.DAYS.toMillis(2);
+
+  private static final double SIGNED_OUT_SESSIONS = 0.7;
+
+  private static final int PROGRESS_ROWS = 1000000;
+
+  private static final int PASSWORD_ITERATIONS = 1000;
+
+  private static final int PASSWORD_KEY_LENGTH = 512;
+
+  /** A prime, so that rank * PERMUTATION_STEP mod n visits every question once for most n */
+  private static final long PERMUTATION_STEP = 1000000007L;
+
+  private static final String[] FIRST_NAMES = {"Aarav", "Ananya", "Arjun", "Diya", "Ishaan",
+      "Kavya", "Meera", "Nikhil", "Priya", "Rahul", "Riya", "Rohan", "Saanvi", "Vikram"};
+
+  private static final String[] LAST_NAMES = {"Agarwal", "Bose", "Chopra", "Das", "Gupta", "Iyer",
+      "Joshi", "Kapoor", "Mehta", "Nair", "Patel", "Rao", "Reddy", "Sharma", "Singh"};
+
+  private static final String[] COUNTRIES = {"India", "India", "India", "India", "United States",
+      "United Kingdom", "Canada", "Singapore", "Australia", "Germany"};
+
+  private static final String[] WORDS = ("the a to of and in is it for how what why when which "
+      + "do does can should best way learn start career job interview java spring database index "
+      + "query postgres performance cloud python data science machine learning design system "
+      + "scale cache memory thread lock test build deploy code review team project book course "
+      + "college exam city travel food health money invest market time year good first new")
+      .split(" ");
+
+  private final long users;
+  private final long questions;
+  private final long answers;
+  private final long sessions;
+  private final long days;
+  private final double answerSkew;
+  private final long sessionHours;
+  private final String password;
+  private final SplittableRandom random;
+
+  private final long now = System.currentTimeMillis();
+
+  DatasetGenerator(final long users, final long questions, final long answers,
+      final long sessions, final long days, final double answerSkew, final long sessionHours,
+      final String password, final long seed) {
+    this.users = users;
+    this.questions = questions;
+    this.answers = answers;
+    this.sessions = sessions;
+    this.days = days;
+    this.answerSkew = answerSkew;
+    this.sessionHours = sessionHours;
+    this.password = password;
+    this.random = new SplittableRandom(seed);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final long users = Long.getLong("dataset.users", 10000);
+    final DatasetGenerator generator = new DatasetGenerator(
+        users,
+        Long.getLong("dataset.questions", 100000),
+        Long.getLong("dataset.answers", 1000000),
+        Long.getLong("dataset.sessions", users * 2),
+        Long.getLong("dataset.days", 365),
+        Double.parseDouble(System.getProperty("dataset.answer-skew", "1.0")),
+        Long.getLong("dataset.session-hours", 48),
+        System.getProperty("dataset.password", "password"),
+        Long.getLong("dataset.seed", 42));
+
+    try (Connection connection = DriverManager.getConnection(
+        System.getProperty("dataset.url"), System.getProperty("dataset.user"),
+        System.getProperty("dataset.db-password"))) {
+      generator.generate(connection);
+    }
+  }
+
+  void generate(final Connection connection) throws SQLException, GeneralSecurityException {
+    if (questions == 0 && answers > 0 || users == 0 && (questions > 0 || sessions > 0)) {
+      throw new IllegalArgumentException("Questions need users, and answers need questions");
+    }
+    connection.setAutoCommit(false);
+    execute(connection, "SET synchronous_commit = off");
+    final CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+
+    final long firstUserId = nextId(connection, "users");
+    final long firstQuestionId = nextId(connection, "question");
+
+    loadUsers(connection, copyManager, firstUserId);
+    loadSessions(connection, copyManager, nextId(connection, "user_auth"), firstUserId);
+    final long[] questionDates = loadQuestions(connection, copyManager, firstQuestionId,
+        firstUserId);
+    loadAnswers(connection, copyManager, nextId(connection, "answer"), firstUserId,
+        firstQuestionId, questionDates);
+
+    for (String table : new String[]{"users", "user_auth", "question", "answer"}) {
+      execute(connection, "SELECT setval('" + table + "_id_seq', "
+          + "(SELECT GREATEST(MAX(id), 1) FROM " + table + "))");
+      execute(connection, "ANALYZE " + table);
+    }
+    connection.commit();
+  }
+
+  private void loadUsers(final Connection connection, final CopyManager copyManager,
+      final long firstId) throws SQLException, GeneralSecurityException {
+    // Hashing a password takes a thousand HMAC rounds, so all users share one salt and hash
+    final byte[] salt = new byte[32];
+    nextBytes(salt);
+    final byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512")
+        .generateSecret(new PBEKeySpec(password.toCharArray(), salt, PASSWORD_ITERATIONS,
+            PASSWORD_KEY_LENGTH)).getEncoded();
+    final String encodedSalt = Base64.getEncoder().encodeToString(salt);
+    final String storedPassword = "$pbkdf2-sha512$i=" + PASSWORD_ITERATIONS + ",l="
+        + PASSWORD_KEY_LENGTH + "$" + encodedSalt + "$" + Base64.getEncoder().encodeToString(hash);
+
+    final long start = now - TimeUnit.DAYS.toMillis(days);
+    try (CopyWriter writer = new CopyWriter(copyManager, "users", "id", "uuid", "firstname",
+        "lastname", "username", "email", "password", "salt", "country", "aboutme", "dob", "role",
+        "contactnumber")) {
+      for (long i = 0; i < users; i++) {
+        final long id = firstId + i;
+        writer.field(id)
+            .field(uuid(start + (now - start) * i / users))
+            .field(pick(FIRST_NAMES))
+            .field(pick(LAST_NAMES))
+            .field("user" + id)
+            .field("user" + id + "@example.com")
+            .field(storedPassword)
+            .field(encodedSalt)
+            .field(pick(COUNTRIES))
+            .field(random.nextInt(4) == 0 ? null : text(3, 40))
+            .field(String.format("%02d-%02d-%d", 1 + random.nextInt(28), 1 + random.nextInt(12),
+                1960 + random.nextInt(45)))
+            .field("nonadmin")
+            .field(Long.toString(9000000000L + random.nextLong(1000000000L)))
+            .endRow();
+        progress("users", writer.getRows(), users);
+      }
+    }
+    connection.commit();
+  }
+
+  private void loadSessions(final Connection connection, final CopyManager copyManager,
+      final long firstId, final long firstUserId) throws SQLException, GeneralSecurityException {
+    final MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+    final long start = now - TimeUnit.HOURS.toMillis(sessionHours);
+    final byte[] payload = new byte[120];
+    final byte[] signature = new byte[64];
+    try (CopyWriter writer = new CopyWriter(copyManager, "user_auth", "id", "uuid", "user_id",
+        "access_token", "access_token_digest", "expires_at", "login_at", "logout_at")) {
+      for (long i = 0; i < sessions; i++) {
+        final long id = firstId + i;
+        final long loginAt = start + (now - start) * i / sessions;
+        final long expiresAt = loginAt + SESSION_MILLIS;
+        final long logoutAt = loginAt + random.nextLong(SESSION_MILLIS);
+        final boolean signedOut = random.nextDouble() < SIGNED_OUT_SESSIONS && logoutAt < now;
+
+        // Tokens are shaped like the JWTs the application issues, and unique through their id
+        nextBytes(payload);
+        ByteBuffer.wrap(payload).putLong(id);
+        nextBytes(signature);
+        final String token = "eyJhbGciOiJIUzUxMiJ9."
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + "."
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+
+        writer.field(id)
+            .field(uuid(loginAt))
+            .field(firstUserId + random.nextLong(users))
+            .field(token)
+            .bytes(sha256.digest(token.getBytes(StandardCharsets.UTF_8)))
+            .timestamp(expiresAt)
+            .timestamp(loginAt)
+            .nullableTimestamp(signedOut ? logoutAt : null)
+            .endRow();
+        progress("user_auth", writer.getRows(), sessions);
+      }
+    }
+    connection.commit();
+  }
+
+  /**
+   * @return creation time of every question, indexed by its position after the first id
+   */
+  private long[] loadQuestions(final Connection connection, final CopyManager copyManager,
+      final long firstId, final long firstUserId) throws SQLException {
+    final long[] dates = new long[Math.toIntExact(questions)];
+    final long start = now - TimeUnit.DAYS.toMillis(days);
+    try (CopyWriter writer = new CopyWriter(copyManager, "question", "id", "uuid", "content",
+        "date", "user_id")) {
+      for (int i = 0; i < dates.length; i++) {
+        dates[i] = start + (now - start) * i / questions;
+        writer.field(firstId + i)
+            .field(uuid(dates[i]))
+            .field(text(6, 480) + "?")
+            .timestamp(dates[i])
+            .field(firstUserId + random.nextLong(users))
+            .endRow();
+        progress("question", writer.getRows(), questions);
+      }
+    }
+    connection.commit();
+    return dates;
+  }
+
+  private void loadAnswers(final Connection connection, final CopyManager copyManager,
+      final long firstId, final long firstUserId, final long firstQuestionId,
+      final long[] questionDates) throws SQLException {
+    final ZipfSampler popularity = answers > 0 ? new ZipfSampler(questions, answerSkew) : null;
+    // The most answered questions are spread over the whole period instead of being the oldest
+    final long step = gcd(PERMUTATION_STEP % questions, questions) == 1 ? PERMUTATION_STEP : 1;
+    try (CopyWriter writer = new CopyWriter(copyManager, "answer", "id", "uuid", "ans", "date",
+        "user_id", "question_id")) {
+      for (long i = 0; i < answers; i++) {
+        final int question = (int) ((popularity.sample(random) - 1) * step % questions);
+        final long delay = (long) (-Math.log(1 - random.nextDouble()) * MEAN_ANSWER_DELAY_MILLIS);
+        final long date = Math.min(questionDates[question] + delay, now);
+        writer.field(firstId + i)
+            .field(uuid(date))
+            .field(text(3, 250))
+            .timestamp(date)
+            .field(firstUserId + random.nextLong(users))
+            .field(firstQuestionId + question)
+            .endRow();
+        progress("answer", writer.getRows(), answers);
+      }
+    }
+    connection.commit();
+  }
+
+  /** Time-ordered (version 7) uuid of a row created at the given time */
+  private String uuid(final long epochMillis) {
+    final long mostSigBits = (epochMillis << 16) | 0x7000L | random.nextInt(1 << 12);
+    final long leastSigBits = 0x8000000000000000L | (random.nextLong() & 0x3fffffffffffffffL);
+    return new UUID(mostSigBits, leastSigBits).toString();
+  }
+
+  /** Words of WORDS up to a length between minWords words and maxLength characters */
+  private String text(final int minWords, final int maxLength) {
+    final int length = minWords * 6 + random.nextInt(maxLength - minWords * 6 + 1);
+    final StringBuilder text = new StringBuilder(length + 16);
+    while (text.length() < length) {
+      if (text.length() > 0) {
+        text.append(' ');
+      }
+      text.append(pick(WORDS));
+    }
+    return text.length() > maxLength ? text.substring(0, maxLength).trim() : text.toString();
+  }
+
+  private void nextBytes(final byte[] bytes) {
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) random.nextInt(256);
+    }
+  }
+
+  private String pick(final String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+
+  private static long nextId(final Connection connection, final String table)
+      throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(
+            "SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private static void execute(final Connection connection, final String sql)
+      throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static long gcd(final long a, final long b) {
+    return b == 0 ? a : gcd(b, a % b);
+  }
+
+  private static void progress(final String table, final long rows, final long total) {
+    if (rows % PROGRESS_ROWS == 0 || rows == total) {
+      System.out.println(table + ": " + rows + " of " + total + " rows");
+    }
+  }
+}
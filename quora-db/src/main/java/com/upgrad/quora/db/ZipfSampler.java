@@ -0,0 +1,87 @@
+package com.upgrad.quora.db;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks 1..n with the probability of rank k proportional to 1 / k^exponent, so that a few
+ * ranks are drawn very often and most are drawn rarely.
+ *
+ * Uses the rejection-inversion method of Hörmann and Derflinger ("Rejection-inversion to generate
+ * variates from monotone discrete distributions", 1996), which takes constant time and memory per
+ * sample regardless of n.
+ */
+final class ZipfSampler {
+
+  private final long n;
+  private final double exponent;
+  private final double hIntegralX1;
+  private final double hIntegralN;
+  private final double s;
+
+  /**
+   * @param n - number of ranks
+   * @param exponent - skew of the distribution, greater than 0
+   */
+  ZipfSampler(final long n, final double exponent) {
+    if (n < 1 || exponent <= 0) {
+      throw new IllegalArgumentException("Zipf distribution needs n >= 1 and exponent > 0");
+    }
+    this.n = n;
+    this.exponent = exponent;
+    this.hIntegralX1 = hIntegral(1.5) - 1;
+    this.hIntegralN = hIntegral(n + 0.5);
+    this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+  }
+
+  /**
+   * @return a rank between 1 and n
+   */
+  long sample(final SplittableRandom random) {
+    while (true) {
+      final double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+      final double x = hIntegralInverse(u);
+      long k = (long) (x + 0.5);
+      if (k < 1) {
+        k = 1;
+      } else if (k > n) {
+        k = n;
+      }
+      if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+        return k;
+      }
+    }
+  }
+
+  private double h(final double x) {
+    return Math.exp(-exponent * Math.log(x));
+  }
+
+  private double hIntegral(final double x) {
+    final double logX = Math.log(x);
+    return helper2((1 - exponent) * logX) * logX;
+  }
+
+  private double hIntegralInverse(final double x) {
+    double t = x * (1 - exponent);
+    if (t < -1) {
+      t = -1;
+    }
+    return Math.exp(helper1(t) * x);
+  }
+
+  /** log(1 + x) / x, accurate for x close to 0 */
+  private static double helper1(final double x) {
+    if (Math.abs(x) > 1e-8) {
+      return Math.log1p(x) / x;
+    }
+    return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+  }
+
+  /** (exp(x) - 1) / x, accurate for x close to 0 */
+  private static double helper2(final double x) {
+    if (Math.abs(x) > 1e-8) {
+      return Math.expm1(x) / x;
+    }
+    return 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+  }
+}
@@ -0,0 +1,10 @@
+--Adds the indexes on the foreign keys that the lookups of the rows of a user go through, and which
+--the ON DELETE CASCADE of a user deletion scans. ANSWER(QUESTION_ID) is not indexed on its own:
+--ANSWER_QUESTION_ID_DATE_ID_IDX leads with QUESTION_ID and serves those lookups already.
+--The statements are safe to re-run, and the indexes are built without locking out new rows.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS USER_AUTH_USER_ID_IDX ON USER_AUTH(USER_ID);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS QUESTION_USER_ID_IDX ON QUESTION(USER_ID);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ANSWER_USER_ID_IDX ON ANSWER(USER_ID);
@@ -0,0 +1,8 @@
+--Adds the SHA-256 digest of the access token to USER_AUTH, so that sessions are looked up by the
+--fixed-size digest instead of the VARCHAR(500) token. The statements are safe to re-run.
+--sha256() requires PostgreSQL 11 or later.
+
+ALTER TABLE USER_AUTH ADD COLUMN IF NOT EXISTS ACCESS_TOKEN_DIGEST BYTEA NULL;
+
+--Backfill the digest of the existing sessions
+UPDATE USER_AUTH SET ACCESS_TOKEN_DIGEST = sha256(convert_to(ACCESS_TOKEN, 'UTF8')) WHERE ACCESS_TOKEN_DIGEST IS NULL;
@@ -0,0 +1,4 @@
+--Adds the unique index the access tokens are looked up through.
+--The statement is safe to re-run, and the index is built without locking out signins.
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS USER_AUTH_ACCESS_TOKEN_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN_DIGEST);
@@ -0,0 +1,3 @@
+--Every session has a digest once the backfill is done. The statement is safe to re-run.
+
+ALTER TABLE USER_AUTH ALTER COLUMN ACCESS_TOKEN_DIGEST SET NOT NULL;
@@ -0,0 +1,6 @@
+--Adds the indexes used by the session sweeper to find ended sessions in USER_AUTH.
+--The statements are safe to re-run, and the indexes are built without locking out signins.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS USER_AUTH_EXPIRES_AT_IDX ON USER_AUTH(EXPIRES_AT);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS USER_AUTH_LOGOUT_AT_IDX ON USER_AUTH(LOGOUT_AT) WHERE LOGOUT_AT IS NOT NULL;
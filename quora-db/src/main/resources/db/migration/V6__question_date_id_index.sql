@@ -0,0 +1,4 @@
+--Adds the index used by the keyset pagination of GET /question/all to QUESTION.
+--The statement is safe to re-run, and the index is built without locking out new questions.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS QUESTION_DATE_ID_IDX ON QUESTION(DATE, ID);
@@ -0,0 +1,4 @@
+--Adds the index used by the keyset pagination of GET /answer/all/{questionId} to ANSWER.
+--The statement is safe to re-run, and the index is built without locking out new answers.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ANSWER_QUESTION_ID_DATE_ID_IDX ON ANSWER(QUESTION_ID, DATE, ID);
@@ -0,0 +1,11 @@
+--Steps the id sequences by 50, the block size Hibernate allocates ids in.
+--The statements are safe to re-run. Rows inserted outside Hibernate with the column default still
+--take a value of the sequence, which is the last id of a block Hibernate never hands out.
+
+ALTER SEQUENCE USERS_ID_SEQ INCREMENT BY 50;
+
+ALTER SEQUENCE USER_AUTH_ID_SEQ INCREMENT BY 50;
+
+ALTER SEQUENCE QUESTION_ID_SEQ INCREMENT BY 50;
+
+ALTER SEQUENCE ANSWER_ID_SEQ INCREMENT BY 50;
@@ -0,0 +1,26 @@
+--Converts the UUID columns from VARCHAR(200) to the 16 byte uuid type, and adds the unique indexes
+--the lookups by uuid go through. Values which are not uuids, such as the uuid of the seed user, are
+--replaced by the uuid formed from their MD5 hash.
+--Each ALTER TABLE rewrites its table and locks it while doing so. The statements are safe to re-run.
+
+ALTER TABLE USERS ALTER COLUMN UUID TYPE UUID USING (CASE
+  WHEN UUID::TEXT ~ '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$'
+  THEN UUID::TEXT::UUID ELSE MD5(UUID::TEXT)::UUID END);
+
+ALTER TABLE USER_AUTH ALTER COLUMN UUID TYPE UUID USING (CASE
+  WHEN UUID::TEXT ~ '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$'
+  THEN UUID::TEXT::UUID ELSE MD5(UUID::TEXT)::UUID END);
+
+ALTER TABLE QUESTION ALTER COLUMN UUID TYPE UUID USING (CASE
+  WHEN UUID::TEXT ~ '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$'
+  THEN UUID::TEXT::UUID ELSE MD5(UUID::TEXT)::UUID END);
+
+ALTER TABLE ANSWER ALTER COLUMN UUID TYPE UUID USING (CASE
+  WHEN UUID::TEXT ~ '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$'
+  THEN UUID::TEXT::UUID ELSE MD5(UUID::TEXT)::UUID END);
+
+CREATE UNIQUE INDEX IF NOT EXISTS USERS_UUID_IDX ON USERS(UUID);
+
+CREATE UNIQUE INDEX IF NOT EXISTS QUESTION_UUID_IDX ON QUESTION(UUID);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ANSWER_UUID_IDX ON ANSWER(UUID);
@@ -2,27 +2,36 @@
 
 --Insert values in USERS table
 INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
-    	VALUES (1025,'database_uuid','database_firstname','database_lastname','database_username','database_email','database_password','database_salt', 'database_country' ,'database_aboutme' ,'database_dob' , 'admin' , 'database_contactnumber' );
+    	VALUES (1025,'10000000-0000-4000-8000-000000001025','database_firstname','database_lastname','database_username','database_email','database_password','database_salt', 'database_country' ,'database_aboutme' ,'database_dob' , 'admin' , 'database_contactnumber' );
 INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
-     VALUES (1026,'database_uuid1','database_firstname1','database_lastname1','database_username1','database_email1','database_password1','database_salt1', 'database_country1' ,'database_aboutme1' ,'database_dob1' , 'nonadmin' , 'database_contactnumber1' );
+     VALUES (1026,'10000000-0000-4000-8000-000000001026','database_firstname1','database_lastname1','database_username1','database_email1','database_password1','database_salt1', 'database_country1' ,'database_aboutme1' ,'database_dob1' , 'nonadmin' , 'database_contactnumber1' );
 INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
-    VALUES (1027,'database_uuid2','database_firstname2','database_lastname2','database_username2','database_email2','database_password2','database_salt2', 'database_country2' ,'database_aboutme2' ,'database_dob2' , 'nonadmin' , 'database_contactnumber2' );
+    VALUES (1027,'10000000-0000-4000-8000-000000001027','database_firstname2','database_lastname2','database_username2','database_email2','database_password2','database_salt2', 'database_country2' ,'database_aboutme2' ,'database_dob2' , 'nonadmin' , 'database_contactnumber2' );
 INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
-    VALUES (1028,'database_uuid3','database_firstname3','database_lastname3','database_username3','database_email3','database_password3','database_salt3', 'database_country3' ,'database_aboutme3' ,'database_dob3' , 'nonadmin' , 'database_contactnumber3' );
+    VALUES (1028,'10000000-0000-4000-8000-000000001028','database_firstname3','database_lastname3','database_username3','database_email3','database_password3','database_salt3', 'database_country3' ,'database_aboutme3' ,'database_dob3' , 'nonadmin' , 'database_contactnumber3' );
 INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
-    VALUES (1029,'database_uuid4','database_firstname4','database_lastname4','database_username4','database_email4','database_password4','database_salt4', 'database_country4' ,'database_aboutme4' ,'database_dob4' , 'nonadmin' , 'database_contactnumber4' );
+    VALUES (1029,'10000000-0000-4000-8000-000000001029','database_firstname4','database_lastname4','database_username4','database_email4','database_password4','database_salt4', 'database_country4' ,'database_aboutme4' ,'database_dob4' , 'nonadmin' , 'database_contactnumber4' );
+--The password of this user is 'database_password5', stored in the legacy hex hash format
+INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
+    VALUES (1030,'10000000-0000-4000-8000-000000001030','database_firstname5','database_lastname5','database_username5','database_email5','20168F27935E8075','ZGF0YWJhc2Vfc2FsdDU=', 'database_country5' ,'database_aboutme5' ,'database_dob5' , 'nonadmin' , 'database_contactnumber5' );
 
 
 --Insert values in USER_AUTH table
-insert into user_auth (id , uuid , user_id , access_token , expires_at , login_at, logout_at) values(1024 , 'database_uuid' , 1025 , 'database_accesstoken' , '2018-09-17 21:07:02.07' , '2018-09-17 13:07:02.07' , null);
-insert into user_auth (id , uuid , user_id , access_token , expires_at , login_at , logout_at) values(1025 , 'database_uuid1' , 1026 , 'database_accesstoken1' , '2018-09-17 21:07:02.07' , '2018-09-17 13:07:02.07' , null );
-insert into user_auth (id , uuid , user_id , access_token , expires_at , login_at , logout_at) values(1026 , 'database_uuid2' , 1027 , 'database_accesstoken2' , '2018-09-17 21:07:02.07' , '2018-09-17 13:07:02.07' , null );
-insert into user_auth (id , uuid , user_id , access_token , expires_at , login_at , logout_at) values(1027 , 'database_uuid3' , 1028 , 'database_accesstoken3' , '2018-09-17 21:07:02.07' , '2018-09-17 13:07:02.07' , '2018-09-17 15:07:02.07' );
+insert into user_auth (id , uuid , user_id , access_token , access_token_digest , expires_at , login_at, logout_at) values(1024 , '20000000-0000-4000-8000-000000001024' , 1025 , 'database_accesstoken' , sha256(convert_to('database_accesstoken', 'UTF8')) , '2099-12-31 21:07:02.07' , '2018-09-17 13:07:02.07' , null);
+insert into user_auth (id , uuid , user_id , access_token , access_token_digest , expires_at , login_at , logout_at) values(1025 , '20000000-0000-4000-8000-000000001025' , 1026 , 'database_accesstoken1' , sha256(convert_to('database_accesstoken1', 'UTF8')) , '2099-12-31 21:07:02.07' , '2018-09-17 13:07:02.07' , null );
+insert into user_auth (id , uuid , user_id , access_token , access_token_digest , expires_at , login_at , logout_at) values(1026 , '20000000-0000-4000-8000-000000001026' , 1027 , 'database_accesstoken2' , sha256(convert_to('database_accesstoken2', 'UTF8')) , '2099-12-31 21:07:02.07' , '2018-09-17 13:07:02.07' , null );
+insert into user_auth (id , uuid , user_id , access_token , access_token_digest , expires_at , login_at , logout_at) values(1027 , '20000000-0000-4000-8000-000000001027' , 1028 , 'database_accesstoken3' , sha256(convert_to('database_accesstoken3', 'UTF8')) , '2099-12-31 21:07:02.07' , '2018-09-17 13:07:02.07' , '2018-09-17 15:07:02.07' );
+--This session has expired an hour before the tests are run
+insert into user_auth (id , uuid , user_id , access_token , access_token_digest , expires_at , login_at , logout_at) values(1028 , '20000000-0000-4000-8000-000000001028' , 1029 , 'database_accesstoken4' , sha256(convert_to('database_accesstoken4', 'UTF8')) , CURRENT_TIMESTAMP - INTERVAL '1 hour' , CURRENT_TIMESTAMP - INTERVAL '9 hours' , null );
 
 
 --Insert values in QUESTION table
-insert into question (id,uuid,content,date,user_id) values(1024,'database_question_uuid','database_question_content','2018-09-17 19:41:19.593',1026);
+insert into question (id,uuid,content,date,user_id) values(1024,'30000000-0000-4000-8000-000000001024','database_question_content','2018-09-17 19:41:19.593',1026);
+insert into question (id,uuid,content,date,user_id) values(1025,'30000000-0000-4000-8000-000000001025','database_question_content1','2018-09-18 10:15:00.000',1026);
+insert into question (id,uuid,content,date,user_id) values(1026,'30000000-0000-4000-8000-000000001026','database_question_content2','2018-09-18 10:15:00.000',1026);
 
 
 --Insert values in ANSWER table
-insert into answer(id,uuid,ans,date,user_id,question_id) values (1024,'database_answer_uuid','my_answer','2018-09-17 19:41:19.593',1026,1024);
+insert into answer(id,uuid,ans,date,user_id,question_id) values (1024,'40000000-0000-4000-8000-000000001024','my_answer','2018-09-17 19:41:19.593',1026,1024);
+insert into answer(id,uuid,ans,date,user_id,question_id) values (1025,'40000000-0000-4000-8000-000000001025','my_answer1','2018-09-18 10:15:00.000',1026,1024);
+insert into answer(id,uuid,ans,date,user_id,question_id) values (1026,'40000000-0000-4000-8000-000000001026','my_answer2','2018-09-18 10:15:00.000',1026,1024);
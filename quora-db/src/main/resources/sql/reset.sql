@@ -0,0 +1,8 @@
+--Drops the tables of the application and the migration history, so that the migrations recreate the
+--schema from scratch. Used by the setup profile only, never against a shared database.
+
+DROP TABLE IF EXISTS ANSWER CASCADE;
+DROP TABLE IF EXISTS QUESTION CASCADE;
+DROP TABLE IF EXISTS USER_AUTH CASCADE;
+DROP TABLE IF EXISTS USERS CASCADE;
+DROP TABLE IF EXISTS flyway_schema_history CASCADE;
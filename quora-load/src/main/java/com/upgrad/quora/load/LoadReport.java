@@ -0,0 +1,178 @@
+package com.upgrad.quora.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the requests of the virtual users, per operation.
+ *
+ * Latencies of successful responses are recorded in microseconds into an HdrHistogram Recorder,
+ * which the virtual users write to without locking. Responses with a 4xx status are counted as
+ * rejected: some are expected under concurrent traffic, such as answering a question another
+ * virtual user has just deleted. 5xx responses and failed connections are counted as errors.
+ *
+ * Only the requests completed between startMeasurement and stopMeasurement are reported.
+ */
+final class LoadReport {
+
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+  private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+  private final Map<Operation, LongAdder> rejected = new EnumMap<>(Operation.class);
+
+  private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+  private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+
+  private final Map<Operation, Long> rejectedCounts = new EnumMap<>(Operation.class);
+
+  private final Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+
+  private long startNanos;
+
+  private double seconds;
+
+  LoadReport() {
+    for (Operation operation : Operation.values()) {
+      recorders.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+      rejected.put(operation, new LongAdder());
+      errors.put(operation, new LongAdder());
+    }
+  }
+
+  /**
+   * @param status HTTP status of the response, or -1 if the request failed without one
+   */
+  void record(final Operation operation, final long latencyNanos, final int status) {
+    if (status >= 200 && status < 300) {
+      recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    } else if (status >= 400 && status < 500) {
+      rejected.get(operation).increment();
+    } else {
+      errors.get(operation).increment();
+    }
+  }
+
+  /**
+   * Discards what was recorded so far, during the warmup.
+   */
+  void startMeasurement() {
+    for (Operation operation : Operation.values()) {
+      recorders.get(operation).reset();
+      rejected.get(operation).reset();
+      errors.get(operation).reset();
+    }
+    startNanos = System.nanoTime();
+  }
+
+  void stopMeasurement() {
+    seconds = (System.nanoTime() - startNanos) / 1e9;
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+      rejectedCounts.put(operation, rejected.get(operation).sum());
+      errorCounts.put(operation, errors.get(operation).sum());
+    }
+  }
+
+  /**
+   * Prints requests per second and latency percentiles in milliseconds of every operation that
+   * was performed, and of all of them together.
+   */
+  void print(final PrintStream out) {
+    out.println(String.format("%-16s %9s %9s %7s %9s %9s %9s %9s %9s %9s", "operation", "ok",
+        "rejected", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms"));
+    final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+    long totalRejected = 0;
+    long totalErrors = 0;
+    for (Operation operation : Operation.values()) {
+      final Histogram histogram = histograms.get(operation);
+      total.add(histogram);
+      totalRejected += rejectedCounts.get(operation);
+      totalErrors += errorCounts.get(operation);
+      if (performed(operation)) {
+        print(out, operation.getOperationName(), histogram, rejectedCounts.get(operation),
+            errorCounts.get(operation));
+      }
+    }
+    print(out, "all", total, totalRejected, totalErrors);
+  }
+
+  private void print(final PrintStream out, final String name, final Histogram histogram,
+      final long rejectedCount, final long errorCount) {
+    out.println(String.format("%-16s %9d %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f", name,
+        histogram.getTotalCount(), rejectedCount, errorCount,
+        histogram.getTotalCount() / seconds,
+        millis(histogram.getValueAtPercentile(PERCENTILES[0])),
+        millis(histogram.getValueAtPercentile(PERCENTILES[1])),
+        millis(histogram.getValueAtPercentile(PERCENTILES[2])),
+        millis(histogram.getValueAtPercentile(PERCENTILES[3])),
+        millis(histogram.getMaxValue())));
+  }
+
+  /**
+   * Writes the report to {name}.json in the directory, and the full latency distribution of every
+   * operation in milliseconds to {name}/{operation}.hgrm, which HdrHistogram's plotter reads.
+   *
+   * @param settings settings of the run written along with the results, such as the mix
+   * @return the report as written
+   */
+  ObjectNode write(final File directory, final String name, final ObjectNode settings)
+      throws IOException {
+    final File distributions = new File(directory, name);
+    distributions.mkdirs();
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final ObjectNode report = objectMapper.createObjectNode();
+    report.setAll(settings);
+    report.put("seconds", seconds);
+    final ObjectNode results = report.putObject("operations");
+    for (Operation operation : Operation.values()) {
+      if (!performed(operation)) {
+        continue;
+      }
+      final Histogram histogram = histograms.get(operation);
+      final ObjectNode result = results.putObject(operation.getOperationName());
+      result.put("ok", histogram.getTotalCount());
+      result.put("rejected", rejectedCounts.get(operation));
+      result.put("errors", errorCounts.get(operation));
+      result.put("throughput", histogram.getTotalCount() / seconds);
+      result.put("mean", millis(histogram.getMean()));
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        result.put(PERCENTILE_NAMES[i], millis(histogram.getValueAtPercentile(PERCENTILES[i])));
+      }
+      result.put("max", millis(histogram.getMaxValue()));
+
+      try (PrintStream out = new PrintStream(new FileOutputStream(
+          new File(distributions, operation.getOperationName() + ".hgrm")), false, "UTF-8")) {
+        histogram.outputPercentileDistribution(out, 1000.0);
+      }
+    }
+    objectMapper.writerWithDefaultPrettyPrinter()
+        .writeValue(new File(directory, name + ".json"), report);
+    return report;
+  }
+
+  private boolean performed(final Operation operation) {
+    return histograms.get(operation).getTotalCount() + rejectedCounts.get(operation)
+        + errorCounts.get(operation) > 0;
+  }
+
+  private static double millis(final double micros) {
+    return micros / 1000.0;
+  }
+}
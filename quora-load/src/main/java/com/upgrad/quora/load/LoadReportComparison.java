@@ -0,0 +1,103 @@
+package com.upgrad.quora.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Compares two reports of LoadTest, usually of two commits, and prints the change of the
+ * throughput and latency percentiles of every operation they have in common.
+ *
+ * Arguments: the report before and after a change, and optionally the tolerance in percent (10 by
+ * default). An operation whose throughput dropped, or whose p99 latency rose, by more than the
+ * tolerance is marked as a regression, and the process exits with status 1 when there is any.
+ * Reports are only comparable when they were run with the same users, rate and mix, which is
+ * checked first.
+ */
+public final class LoadReportComparison {
+
+  static final double DEFAULT_TOLERANCE_PERCENT = 10;
+
+  private static final String[] SETTINGS = {"users", "rate", "mix"};
+
+  private static final String[] LATENCIES = {"p50", "p90", "p99", "p999"};
+
+  private LoadReportComparison() {
+  }
+
+  public static void main(final String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: LoadReportComparison <before.json> <after.json> [tolerance %]");
+      System.exit(2);
+    }
+    final double tolerance = args.length > 2
+        ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE_PERCENT;
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final int regressions = compare(objectMapper.readTree(new File(args[0])),
+        objectMapper.readTree(new File(args[1])), tolerance);
+    System.exit(regressions > 0 ? 1 : 0);
+  }
+
+  /**
+   * Prints the changes from one report to the other.
+   *
+   * @return the number of regressions
+   * @throws IllegalArgumentException if the reports were run with different settings
+   */
+  static int compare(final JsonNode before, final JsonNode after, final double tolerance) {
+    for (String setting : SETTINGS) {
+      if (!before.path(setting).equals(after.path(setting))) {
+        throw new IllegalArgumentException("Reports differ in " + setting + ": "
+            + before.path(setting) + " and " + after.path(setting));
+      }
+    }
+
+    int regressions = 0;
+    final JsonNode oldResults = before.path("operations");
+    final Iterator<Map.Entry<String, JsonNode>> operations = after.path("operations").fields();
+    while (operations.hasNext()) {
+      final Map.Entry<String, JsonNode> operation = operations.next();
+      final JsonNode old = oldResults.get(operation.getKey());
+      if (old == null) {
+        System.out.println(operation.getKey() + ": new");
+        continue;
+      }
+      final JsonNode result = operation.getValue();
+      final double throughputChange = change(old, result, "throughput");
+      final double p99Change = change(old, result, "p99");
+      final boolean regression = -throughputChange > tolerance || p99Change > tolerance;
+      if (regression) {
+        regressions++;
+      }
+      final StringBuilder line = new StringBuilder(String.format("%s: %.1f -> %.1f req/s (%+.1f%%)",
+          operation.getKey(), old.get("throughput").asDouble(), result.get("throughput").asDouble(),
+          throughputChange));
+      for (String latency : LATENCIES) {
+        line.append(String.format(", %s %.2f -> %.2f ms (%+.1f%%)", latency,
+            old.get(latency).asDouble(), result.get(latency).asDouble(),
+            change(old, result, latency)));
+      }
+      if (result.get("errors").asLong() > 0) {
+        line.append(", ").append(result.get("errors").asLong()).append(" errors");
+      }
+      System.out.println(line.append(regression ? " REGRESSION" : ""));
+    }
+    final Iterator<String> oldOperations = oldResults.fieldNames();
+    while (oldOperations.hasNext()) {
+      final String operation = oldOperations.next();
+      if (!after.path("operations").has(operation)) {
+        System.out.println(operation + ": removed");
+      }
+    }
+    return regressions;
+  }
+
+  private static double change(final JsonNode old, final JsonNode result, final String field) {
+    final double oldValue = old.get(field).asDouble();
+    return oldValue == 0 ? 0 : (result.get(field).asDouble() - oldValue) / oldValue * 100;
+  }
+}
@@ -0,0 +1,191 @@
+package com.upgrad.quora.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.upgrad.quora.api.QuoraApiApplication;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test of the API over HTTP. Boots QuoraApiApplication on a free port against the
+ * database of application.yaml, or targets the running API at load.url, then drives it from
+ * concurrent virtual users and reports the requests per second and the latency percentiles of
+ * every operation. Run it with the load profile of quora-load, usually on a database loaded with
+ * the dataset profile of quora-db:
+ *
+ * <pre>
+ * mvn -Psetup -pl quora-db process-resources
+ * mvn -Pdataset -pl quora-db process-classes
+ * mvn -Pload -pl quora-load -am verify -DskipTests -Dload.users=100 -Dload.duration-seconds=120
+ * </pre>
+ *
+ * The settings are read from system properties:
+ * <ul>
+ *   <li>load.users - concurrent virtual users, each signed up as a new user of the API</li>
+ *   <li>load.warmup-seconds - traffic before the measurement, which is not reported</li>
+ *   <li>load.duration-seconds - traffic that is measured</li>
+ *   <li>load.rate - requests per second of all virtual users together, 0 for as many as they
+ *   can send one after the other; with a rate the latencies include the time requests waited
+ *   for their turn behind slower ones</li>
+ *   <li>load.mix - weights of the operations, such as "signin=5,list-questions=30"</li>
+ *   <li>load.url - base url of a running API, such as "http://localhost:8080/api", instead of
+ *   booting one</li>
+ *   <li>load.seed - seed of the operations picked, so that two runs send the same mix</li>
+ *   <li>load.baseline - report of an earlier run to compare the results with, see
+ *   LoadReportComparison; the load test fails when an operation regressed</li>
+ * </ul>
+ *
+ * Arguments are passed to the booted application, such as "--quora.jwt.stateless=true". The
+ * report is printed and written to load-results/{commit}.json, named after the git commit the
+ * load test is run on.
+ */
+public final class LoadTest {
+
+  private static final String RESULT_DIRECTORY = "load-results";
+
+  private static final String DEFAULT_MIX = "signin=5,create-question=5,list-questions=30,"
+      + "edit-question=3,delete-question=2,create-answer=15,list-answers=30,edit-answer=5,"
+      + "delete-answer=5";
+
+  private static final int QUESTION_POOL_CAPACITY = 10000;
+
+  private static final String PASSWORD = "load-test-password";
+
+  private LoadTest() {
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final int users = Integer.parseInt(setting("load.users", "50"));
+    final long warmupSeconds = Long.parseLong(setting("load.warmup-seconds", "15"));
+    final long durationSeconds = Long.parseLong(setting("load.duration-seconds", "60"));
+    final double rate = Double.parseDouble(setting("load.rate", "0"));
+    final OperationMix mix = OperationMix.parse(setting("load.mix", DEFAULT_MIX));
+    final String url = setting("load.url", "");
+    final long seed = Long.parseLong(setting("load.seed", "42"));
+    final String baseline = setting("load.baseline", "");
+    // read upfront, as the report of this run replaces it when both are of the same commit
+    final JsonNode baselineReport = baseline.isEmpty()
+        ? null : new ObjectMapper().readTree(new File(baseline));
+
+    // the JDK keeps 5 idle connections to a host by default, fewer than the virtual users
+    System.setProperty("http.maxConnections", String.valueOf(users));
+
+    int regressions = 0;
+    ConfigurableApplicationContext application = null;
+    String baseUrl = url;
+    if (url.isEmpty()) {
+      application = new SpringApplicationBuilder(QuoraApiApplication.class)
+          .properties("server.port=0").run(args);
+      final String contextPath = application.getBean(ServerProperties.class).getServlet()
+          .getContextPath();
+      baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) application)
+          .getWebServer().getPort() + (contextPath == null ? "" : contextPath);
+    }
+
+    try {
+      final LoadReport report = new LoadReport();
+      final QuestionPool questionPool = new QuestionPool(QUESTION_POOL_CAPACITY);
+      final SplittableRandom random = new SplittableRandom(seed);
+      final long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(users) / rate) : 0;
+      final String run = Long.toString(System.currentTimeMillis(), 36);
+      System.out.println("Signing up " + users + " virtual users at " + baseUrl);
+      final List<VirtualUser> virtualUsers = new ArrayList<>(users);
+      for (int i = 0; i < users; i++) {
+        final VirtualUser virtualUser = new VirtualUser(baseUrl, "load-" + run + "-" + i,
+            PASSWORD, mix, questionPool, report, intervalNanos, random.split());
+        virtualUser.signup();
+        virtualUsers.add(virtualUser);
+      }
+
+      final ExecutorService executor = Executors.newFixedThreadPool(users);
+      virtualUsers.forEach(executor::execute);
+      System.out.println("Warming up for " + warmupSeconds + " s");
+      TimeUnit.SECONDS.sleep(warmupSeconds);
+      report.startMeasurement();
+      System.out.println("Measuring for " + durationSeconds + " s");
+      TimeUnit.SECONDS.sleep(durationSeconds);
+      report.stopMeasurement();
+      virtualUsers.forEach(VirtualUser::stop);
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+
+      report.print(System.out);
+      final ObjectNode settings = new ObjectMapper().createObjectNode();
+      settings.put("users", users);
+      settings.put("rate", rate);
+      settings.put("mix", mix.toString());
+      settings.put("url", url);
+      settings.put("arguments", String.join(" ", args));
+      final String name = commit();
+      final JsonNode written = report.write(new File(RESULT_DIRECTORY), name, settings);
+      System.out.println("Report written to " + new File(RESULT_DIRECTORY, name + ".json"));
+      if (baselineReport != null) {
+        System.out.println("Compared with " + baseline);
+        regressions = LoadReportComparison.compare(baselineReport, written,
+            LoadReportComparison.DEFAULT_TOLERANCE_PERCENT);
+      }
+    } finally {
+      if (application != null) {
+        application.close();
+      }
+    }
+    System.exit(regressions > 0 ? 1 : 0);
+  }
+
+  /**
+   * @return the system property, or the default if it is not set or empty, as the load profile
+   *     passes the settings that were not given
+   */
+  private static String setting(final String name, final String defaultValue) {
+    final String value = System.getProperty(name);
+    return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+  }
+
+  /**
+   * @return abbreviated id of the checked out commit, suffixed with "-dirty" if the work tree has
+   *     changes, or "local" outside a git work tree
+   */
+  private static String commit() {
+    final String commit = git("rev-parse", "--short", "HEAD");
+    if (commit == null || commit.isEmpty()) {
+      return "local";
+    }
+    final String changes = git("status", "--porcelain", "--untracked-files=no");
+    return changes == null || changes.isEmpty() ? commit : commit + "-dirty";
+  }
+
+  private static String git(final String... args) {
+    final List<String> command = new ArrayList<>();
+    command.add("git");
+    command.addAll(Arrays.asList(args));
+    try {
+      final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+      final StringBuilder output = new StringBuilder();
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          output.append(line).append('\n');
+        }
+      }
+      return process.waitFor() == 0 ? output.toString().trim() : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.upgrad.quora.load;
+
+/**
+ * The operations a virtual user performs, each one request to one endpoint of the API. Latencies
+ * and counts are reported per operation under its name.
+ */
+enum Operation {
+
+  SIGNIN("signin"),
+  CREATE_QUESTION("create-question"),
+  LIST_QUESTIONS("list-questions"),
+  EDIT_QUESTION("edit-question"),
+  DELETE_QUESTION("delete-question"),
+  CREATE_ANSWER("create-answer"),
+  LIST_ANSWERS("list-answers"),
+  EDIT_ANSWER("edit-answer"),
+  DELETE_ANSWER("delete-answer");
+
+  private final String operationName;
+
+  Operation(final String operationName) {
+    this.operationName = operationName;
+  }
+
+  String getOperationName() {
+    return operationName;
+  }
+
+  static Operation forName(final String operationName) {
+    for (Operation operation : values()) {
+      if (operation.operationName.equals(operationName)) {
+        return operation;
+      }
+    }
+    throw new IllegalArgumentException("Unknown operation: " + operationName);
+  }
+}
@@ -0,0 +1,73 @@
+package com.upgrad.quora.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Weights of the operations virtual users pick their next request from, parsed from a list such
+ * as "signin=5,list-questions=30,create-answer=15". Operations that are not listed are not
+ * performed.
+ */
+final class OperationMix {
+
+  private final Map<Operation, Integer> weights;
+
+  private final Operation[] operations;
+
+  private final int[] cumulativeWeights;
+
+  private OperationMix(final Map<Operation, Integer> weights) {
+    this.weights = weights;
+    operations = weights.keySet().toArray(new Operation[0]);
+    cumulativeWeights = new int[operations.length];
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += weights.get(operations[i]);
+      cumulativeWeights[i] = total;
+    }
+  }
+
+  static OperationMix parse(final String mix) {
+    final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    for (String entry : mix.split(",")) {
+      final String[] nameAndWeight = entry.trim().split("=");
+      if (nameAndWeight.length != 2) {
+        throw new IllegalArgumentException("Expected operation=weight, got: " + entry);
+      }
+      final int weight = Integer.parseInt(nameAndWeight[1].trim());
+      if (weight < 0) {
+        throw new IllegalArgumentException("Negative weight: " + entry);
+      }
+      if (weight > 0) {
+        weights.put(Operation.forName(nameAndWeight[0].trim()), weight);
+      }
+    }
+    if (weights.isEmpty()) {
+      throw new IllegalArgumentException("No operation in the mix: " + mix);
+    }
+    return new OperationMix(weights);
+  }
+
+  Operation next(final SplittableRandom random) {
+    final int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (value < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    throw new IllegalStateException();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder mix = new StringBuilder();
+    for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+      if (mix.length() > 0) {
+        mix.append(',');
+      }
+      mix.append(weight.getKey().getOperationName()).append('=').append(weight.getValue());
+    }
+    return mix.toString();
+  }
+}
@@ -0,0 +1,33 @@
+package com.upgrad.quora.load;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Uuids of questions recently seen by any virtual user, in listings or as created, which the
+ * virtual users answer and list the answers of. The pool keeps the latest ones it was given and
+ * overwrites the oldest when full.
+ */
+final class QuestionPool {
+
+  private final AtomicReferenceArray<String> questionIds;
+
+  private final AtomicLong added = new AtomicLong();
+
+  QuestionPool(final int capacity) {
+    questionIds = new AtomicReferenceArray<>(capacity);
+  }
+
+  void add(final String questionId) {
+    questionIds.set((int) (added.getAndIncrement() % questionIds.length()), questionId);
+  }
+
+  /**
+   * @return a question of the pool, or null while it is empty
+   */
+  String pick(final SplittableRandom random) {
+    final long size = Math.min(added.get(), questionIds.length());
+    return size == 0 ? null : questionIds.get(random.nextInt((int) size));
+  }
+}
@@ -0,0 +1,328 @@
+package com.upgrad.quora.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One user of the API, signed up at the start of the load test, who then performs operations
+ * picked from the mix one after the other on its own thread until it is stopped.
+ *
+ * A virtual user edits and deletes only the questions and answers it created. An edit or delete
+ * with nothing of its own to edit or delete creates a question or answer instead, as does
+ * answering before any question was seen.
+ *
+ * Without a pacing interval the virtual user sends its next request as soon as the previous one
+ * completed, and a latency is the time its request took. With an interval, the requests are
+ * scheduled at fixed times; a latency is then measured from the time its request was scheduled
+ * at, so that the requests delayed behind a slow one are not missing from the percentiles
+ * (coordinated omission).
+ */
+final class VirtualUser implements Runnable {
+
+  private static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+
+  private static final int PAGE_SIZE = 10;
+
+  /** Pages of a listing read by following the next-cursor before starting again from the top */
+  private static final int PAGES_PER_LISTING = 5;
+
+  /** Questions and answers of its own a virtual user keeps for editing and deleting */
+  private static final int OWN_ITEMS = 20;
+
+  private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+
+  private static final int READ_TIMEOUT_MILLIS = 60000;
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final String baseUrl;
+
+  private final String userName;
+
+  private final String password;
+
+  private final OperationMix mix;
+
+  private final QuestionPool questionPool;
+
+  private final LoadReport report;
+
+  private final long intervalNanos;
+
+  private final SplittableRandom random;
+
+  private final Deque<String> ownQuestions = new ArrayDeque<>();
+
+  private final Deque<String> ownAnswers = new ArrayDeque<>();
+
+  private String accessToken;
+
+  private String cursor;
+
+  private int pages;
+
+  private volatile boolean stopped;
+
+  VirtualUser(final String baseUrl, final String userName, final String password,
+      final OperationMix mix, final QuestionPool questionPool, final LoadReport report,
+      final long intervalNanos, final SplittableRandom random) {
+    this.baseUrl = baseUrl;
+    this.userName = userName;
+    this.password = password;
+    this.mix = mix;
+    this.questionPool = questionPool;
+    this.report = report;
+    this.intervalNanos = intervalNanos;
+    this.random = random;
+  }
+
+  /**
+   * Signs the user up and in, and lists the latest questions to fill the question pool. Nothing of
+   * it is recorded.
+   */
+  void signup() throws IOException {
+    final Response signup = send("POST", "/user/signup?firstName=Load&lastName=Test&userName="
+        + encode(userName) + "&emailAddress=" + encode(userName + "@load.test") + "&password="
+        + encode(password) + "&country=India&aboutMe=load&dob=2000-01-01&contactNumber=0", null);
+    expect(signup, 201, "signup");
+    expect(signin(), 200, "signin");
+    expect(listQuestions(), 200, "list questions");
+  }
+
+  void stop() {
+    stopped = true;
+  }
+
+  @Override
+  public void run() {
+    long scheduledNanos = System.nanoTime();
+    while (!stopped) {
+      if (intervalNanos > 0) {
+        long waitNanos;
+        while ((waitNanos = scheduledNanos - System.nanoTime()) > 0 && !stopped) {
+          LockSupport.parkNanos(waitNanos);
+        }
+      }
+      final long startNanos = intervalNanos > 0 ? scheduledNanos : System.nanoTime();
+      Operation operation = mix.next(random);
+      int status;
+      try {
+        final OperationResult result = perform(operation);
+        operation = result.operation;
+        status = result.response.status;
+      } catch (IOException e) {
+        status = -1;
+      }
+      report.record(operation, System.nanoTime() - startNanos, status);
+      scheduledNanos += intervalNanos;
+    }
+  }
+
+  private OperationResult perform(final Operation operation) throws IOException {
+    switch (operation) {
+      case SIGNIN:
+        return new OperationResult(operation, signin());
+      case CREATE_QUESTION:
+        return new OperationResult(operation, createQuestion());
+      case LIST_QUESTIONS:
+        return new OperationResult(operation, listQuestions());
+      case EDIT_QUESTION:
+        if (ownQuestions.isEmpty()) {
+          return perform(Operation.CREATE_QUESTION);
+        }
+        return new OperationResult(operation, send("PUT", "/question/edit/"
+            + ownQuestions.peekLast() + "?content=" + encode(sentence()), accessToken));
+      case DELETE_QUESTION:
+        if (ownQuestions.isEmpty()) {
+          return perform(Operation.CREATE_QUESTION);
+        }
+        return new OperationResult(operation,
+            send("DELETE", "/question/delete/" + ownQuestions.pollLast(), accessToken));
+      case CREATE_ANSWER: {
+        final String questionId = questionPool.pick(random);
+        if (questionId == null) {
+          return perform(Operation.CREATE_QUESTION);
+        }
+        final Response response = send("POST", "/question/" + questionId
+            + "/answer/create?answer=" + encode(sentence()), accessToken);
+        if (response.status == 201) {
+          keep(ownAnswers, OBJECT_MAPPER.readTree(response.body).get("id").asText());
+        }
+        return new OperationResult(operation, response);
+      }
+      case LIST_ANSWERS: {
+        final String questionId = questionPool.pick(random);
+        if (questionId == null) {
+          return perform(Operation.LIST_QUESTIONS);
+        }
+        return new OperationResult(operation, send("GET", "/answer/all/" + questionId
+            + "?limit=" + PAGE_SIZE, accessToken));
+      }
+      case EDIT_ANSWER:
+        if (ownAnswers.isEmpty()) {
+          return perform(Operation.CREATE_ANSWER);
+        }
+        return new OperationResult(operation, send("PUT", "/answer/edit/"
+            + ownAnswers.peekLast() + "?content=" + encode(sentence()), accessToken));
+      case DELETE_ANSWER:
+        if (ownAnswers.isEmpty()) {
+          return perform(Operation.CREATE_ANSWER);
+        }
+        return new OperationResult(operation,
+            send("DELETE", "/answer/delete/" + ownAnswers.pollLast(), accessToken));
+      default:
+        throw new IllegalArgumentException("Unknown operation: " + operation);
+    }
+  }
+
+  private Response signin() throws IOException {
+    final String credentials = Base64.getEncoder()
+        .encodeToString((userName + ":" + password).getBytes(StandardCharsets.UTF_8));
+    final Response response = send("POST", "/user/signin", "Basic " + credentials);
+    if (response.status == 200) {
+      accessToken = response.accessToken;
+    }
+    return response;
+  }
+
+  private Response createQuestion() throws IOException {
+    final Response response = send("POST", "/question/create?content=" + encode(sentence()),
+        accessToken);
+    if (response.status == 201) {
+      final String questionId = OBJECT_MAPPER.readTree(response.body).get("id").asText();
+      keep(ownQuestions, questionId);
+      questionPool.add(questionId);
+    }
+    return response;
+  }
+
+  private Response listQuestions() throws IOException {
+    if (pages == PAGES_PER_LISTING) {
+      cursor = null;
+    }
+    final Response response = send("GET", "/question/all?limit=" + PAGE_SIZE
+        + (cursor == null ? "" : "&cursor=" + encode(cursor)), accessToken);
+    if (response.status == 200) {
+      for (JsonNode question : OBJECT_MAPPER.readTree(response.body)) {
+        questionPool.add(question.get("id").asText());
+      }
+      pages = cursor == null ? 1 : pages + 1;
+      cursor = response.nextCursor;
+    }
+    return response;
+  }
+
+  private Response send(final String method, final String path, final String authorization)
+      throws IOException {
+    final HttpURLConnection connection =
+        (HttpURLConnection) new URL(baseUrl + path).openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+    connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+    connection.setRequestMethod(method);
+    connection.setRequestProperty("Accept", "application/json");
+    if (authorization != null) {
+      connection.setRequestProperty("authorization", authorization);
+    }
+    if ("POST".equals(method) || "PUT".equals(method)) {
+      // the endpoints read their input from the query string but only accept JSON requests
+      connection.setRequestProperty("Content-Type", JSON_CONTENT_TYPE);
+      connection.setDoOutput(true);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.flush();
+      }
+    }
+    final int status = connection.getResponseCode();
+    // the body is read to the end, also of errors, so that the connection is kept alive
+    final byte[] body = readFully(status < 400
+        ? connection.getInputStream() : connection.getErrorStream());
+    return new Response(status, body, connection.getHeaderField("access_token"),
+        connection.getHeaderField("next-cursor"));
+  }
+
+  private String sentence() {
+    return "Load test content " + Long.toHexString(random.nextLong()) + " of " + userName;
+  }
+
+  private static void keep(final Deque<String> own, final String id) {
+    own.addLast(id);
+    if (own.size() > OWN_ITEMS) {
+      own.removeFirst();
+    }
+  }
+
+  private static void expect(final Response response, final int status, final String what)
+      throws IOException {
+    if (response.status != status) {
+      throw new IOException(what + " failed with status " + response.status + ": "
+          + new String(response.body, StandardCharsets.UTF_8));
+    }
+  }
+
+  private static String encode(final String value) throws IOException {
+    return URLEncoder.encode(value, "UTF-8");
+  }
+
+  private static byte[] readFully(final InputStream in) throws IOException {
+    if (in == null) {
+      return new byte[0];
+    }
+    try (InputStream body = in) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = body.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static final class Response {
+
+    private final int status;
+
+    private final byte[] body;
+
+    private final String accessToken;
+
+    private final String nextCursor;
+
+    private Response(final int status, final byte[] body, final String accessToken,
+        final String nextCursor) {
+      this.status = status;
+      this.body = body;
+      this.accessToken = accessToken;
+      this.nextCursor = nextCursor;
+    }
+  }
+
+  /**
+   * A response and the operation it is recorded under, which differs from the one picked when
+   * the virtual user had to fall back to another one.
+   */
+  private static final class OperationResult {
+
+    private final Operation operation;
+
+    private final Response response;
+
+    private OperationResult(final Operation operation, final Response response) {
+      this.operation = operation;
+      this.response = response;
+    }
+  }
+}
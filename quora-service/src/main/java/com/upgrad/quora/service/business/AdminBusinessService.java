@@ -2,7 +2,6 @@ package com.upgrad.quora.service.business;
 
 
 import com.upgrad.quora.service.dao.AdminDao;
-import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
@@ -21,17 +20,20 @@ public class AdminBusinessService {
   @Autowired
   private AdminDao adminDao;
 
+  @Autowired
+  private UserSessionCache userSessionCache;
+
   /** Checks if the current user is Admin or not.
    *
-   * @param accessToken
+   * @param userSession
    * @exception AuthorizationFailedException
    * return true
    *
    * */
-  private boolean confirmAdmin(final String accessToken) throws AuthorizationFailedException {
-    UserAuthEntity userAuthToken = userBusinessService.getUserbyToken(accessToken);
+  private boolean confirmAdmin(final UserSession userSession) throws AuthorizationFailedException {
+    userBusinessService.checkUserSession(userSession);
 
-    if (userAuthToken.getUserId().getRole().equals("admin")) {
+    if (userSession.isAdmin()) {
       return true;
     } else {
       throw new AuthorizationFailedException("ATHR-003",
@@ -42,18 +44,19 @@ public class AdminBusinessService {
   /** If the Uuid of the user to be deleted is present in the DB, then delete that user.
    *
    * @param userId
-   * @param accessToken
+   * @param userSession
    * @exception  UserNotFoundException
    * @exception  AuthorizationFailedException
    * @return userId
    *
    * */
   @Transactional(propagation = Propagation.REQUIRED)
-  public String deleteUser(String accessToken, String userId)
+  public String deleteUser(UserSession userSession, String userId)
       throws UserNotFoundException, AuthorizationFailedException {
     UserEntity userById = userBusinessService.getUserById(userId);
-    if (this.confirmAdmin(accessToken)) {
+    if (this.confirmAdmin(userSession)) {
       adminDao.deleteUserByUuid(userId);
+      userSessionCache.invalidateUser(userId);
     }
     return userId;
   }
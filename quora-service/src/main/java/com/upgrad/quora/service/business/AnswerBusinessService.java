@@ -1,26 +1,41 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.BulkItemResult;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.common.RowStream;
 import com.upgrad.quora.service.dao.AnswerDao;
 import com.upgrad.quora.service.dao.QuestionDao;
 import com.upgrad.quora.service.dao.UserDao;
 import com.upgrad.quora.service.entity.AnswerEntity;
 import com.upgrad.quora.service.entity.QuestionEntity;
-import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
+import com.upgrad.quora.service.entity.UuidStringType;
 import com.upgrad.quora.service.exception.AnswerNotFoundException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.BulkLimitExceededException;
+import com.upgrad.quora.service.exception.InvalidPageCursorException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AnswerBusinessService {
 
+  private static final int MAX_ANSWER_LENGTH = 255;
+
   @Autowired
   private AnswerDao answerDao;
 
@@ -30,9 +45,15 @@ public class AnswerBusinessService {
   @Autowired
   private UserDao userDao;
 
+  @Autowired
+  private RowStreams rowStreams;
+
+  @Autowired
+  private BulkInserter bulkInserter;
+
   /**
    * This method takes the following inputs:
-   * @param accessToken   - accepts requester's access token as String value
+   * @param userSession   - accepts UserSession resolved from requester's access token
    * @param answerEntity  - accepts AnswerEntity object passed from AnswerController
    * @param questionUuid  - accepts questionUuid String value passed from AnswerController
    *
@@ -51,15 +72,15 @@ public class AnswerBusinessService {
 
   @Transactional(propagation = Propagation.REQUIRED)
   public AnswerEntity createAnswer(AnswerEntity answerEntity, final String questionUuid,
-      final String accessToken) throws AuthorizationFailedException, InvalidQuestionException {
+      final UserSession userSession)
+      throws AuthorizationFailedException, InvalidQuestionException {
 
-    UserAuthEntity userAuthToken = userDao.getUserAuthByToken(accessToken);
     QuestionEntity question = questionDao.getQuestionById(questionUuid);
 
-    if (userAuthToken == null) {
+    if (userSession == null) {
       throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
     }
-    if (userAuthToken.getLogoutAt() != null) {
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to post an answer");
     }
@@ -67,7 +88,7 @@ public class AnswerBusinessService {
       throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
     }
 
-    answerEntity.setUser(userAuthToken.getUserId());
+    answerEntity.setUser(userDao.getUserReference(userSession.getUserId()));
     answerEntity.setQuestion(question);
 
     return answerDao.createAnswer(answerEntity);
@@ -75,7 +96,91 @@ public class AnswerBusinessService {
 
   /**
    * This method takes the following inputs:
-   * @param accessToken   - accepts requester's access token as String value
+   * @param userSession     - accepts UserSession resolved from requester's access token
+   * @param answerEntities  - accepts AnswerEntity objects passed from AnswerController
+   * @param questionUuids   - accepts the questionUuid of every answer, in the same order
+   *
+   * and then validates the following, once for all the answers:
+   * 1. User should be signed in
+   * 2. User should not have signed out after signing in
+   * 3. There should not be more answers than a bulk request can hold
+   *
+   * After the validations, it looks up all the questions to be answered in a single query, and
+   * rejects the answers without content, with content longer than the ANS column or to a question
+   * which does not exist. The other answers are inserted through the BulkInserter, in JDBC batches
+   * within transactions of a bounded size
+   *
+   * @return BulkItemResult of every answer, in the order of the answerEntities
+   * @exception AuthorizationFailedException if invalid/expired access token is used
+   * @exception BulkLimitExceededException if there are more answers than a bulk request can hold
+   */
+
+  public List<BulkItemResult> createAnswers(final List<AnswerEntity> answerEntities,
+      final List<String> questionUuids, final UserSession userSession)
+      throws AuthorizationFailedException, BulkLimitExceededException {
+
+    if (userSession == null) {
+      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+    }
+    if (userSession.isSignedOut()) {
+      throw new AuthorizationFailedException("ATHR-002",
+          "User is signed out.Sign in first to post an answer");
+    }
+    bulkInserter.checkItemCount(answerEntities.size());
+
+    // the questions are keyed by the uuids read back from the database, which are in lowercase
+    final List<String> normalizedQuestionUuids = new ArrayList<>(questionUuids.size());
+    for (String questionUuid : questionUuids) {
+      normalizedQuestionUuids.add(UuidStringType.normalize(questionUuid));
+    }
+    final Set<String> distinctQuestionUuids = new HashSet<>(normalizedQuestionUuids);
+    distinctQuestionUuids.remove(null);
+    final Map<String, QuestionEntity> questions = new HashMap<>();
+    for (QuestionEntity question : questionDao.getQuestionsByIds(distinctQuestionUuids)) {
+      questions.put(question.getUuid(), question);
+    }
+
+    final UserEntity user = userDao.getUserReference(userSession.getUserId());
+    final BulkItemResult[] results = new BulkItemResult[answerEntities.size()];
+    final List<AnswerEntity> validAnswers = new ArrayList<>();
+    for (int i = 0; i < results.length; i++) {
+      final AnswerEntity answerEntity = answerEntities.get(i);
+      final QuestionEntity question = questions.get(normalizedQuestionUuids.get(i));
+      final String contentError = validateContent(answerEntity.getAns());
+      if (contentError != null) {
+        results[i] = BulkItemResult.rejected("ANS-002", contentError);
+      } else if (question == null) {
+        results[i] = BulkItemResult.rejected("QUES-001", "Entered question uuid does not exist");
+      } else {
+        answerEntity.setQuestion(question);
+        answerEntity.setUser(user);
+        validAnswers.add(answerEntity);
+      }
+    }
+
+    final Set<AnswerEntity> failedAnswers = bulkInserter.insert(validAnswers, chunk -> {
+      for (AnswerEntity answerEntity : chunk) {
+        // a retried answer still has the id given to it by the rolled back transaction
+        answerEntity.setId(0);
+        answerDao.createAnswer(answerEntity);
+      }
+    });
+
+    for (int i = 0; i < results.length; i++) {
+      final AnswerEntity answerEntity = answerEntities.get(i);
+      if (results[i] == null) {
+        results[i] = failedAnswers.contains(answerEntity)
+            ? BulkItemResult.rejected(GenericErrorCode.GEN_001.getCode(),
+                GenericErrorCode.GEN_001.getDefaultMessage())
+            : BulkItemResult.created(answerEntity.getUuid());
+      }
+    }
+    return Arrays.asList(results);
+  }
+
+  /**
+   * This method takes the following inputs:
+   * @param userSession   - accepts UserSession resolved from requester's access token
    * @param answerEntity  - accepts AnswerEntity object passed from AnswerController
    *
    * and then validates the following:
@@ -93,28 +198,27 @@ public class AnswerBusinessService {
    */
 
   @Transactional(propagation = Propagation.REQUIRED)
-  public AnswerEntity editAnswer(AnswerEntity answerEntity, final String accessToken)
+  public AnswerEntity editAnswer(AnswerEntity answerEntity, final UserSession userSession)
       throws AnswerNotFoundException, AuthorizationFailedException {
 
-    UserAuthEntity userAuthToken = userDao.getUserAuthByToken(accessToken);
     AnswerEntity existingAnswer = answerDao.getAnswerByUuid(answerEntity.getUuid());
 
-    if (userAuthToken == null) {
+    if (userSession == null) {
       throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
     }
-    if (userAuthToken.getLogoutAt() != null) {
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to edit an answer");
     }
     if (existingAnswer == null) {
       throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
     }
-    if (!isUserOwner(userAuthToken, existingAnswer)) {
+    if (!isUserOwner(userSession, existingAnswer)) {
       throw new AuthorizationFailedException("ATHR-003",
           "Only the answer owner can edit the answer");
     }
 
-    answerEntity.setUser(userAuthToken.getUserId());
+    answerEntity.setUser(existingAnswer.getUser());
     answerEntity.setDate(existingAnswer.getDate());
     answerEntity.setQuestion(existingAnswer.getQuestion());
     answerEntity.setId(existingAnswer.getId());
@@ -124,7 +228,7 @@ public class AnswerBusinessService {
 
   /**
    * This method takes the following inputs:
-   * @param accessToken   - accepts requester's access token as String value
+   * @param userSession   - accepts UserSession resolved from requester's access token
    * @param answerEntity  - accepts AnswerEntity object passed from AnswerController
    *
    * and then validates the following:
@@ -142,23 +246,22 @@ public class AnswerBusinessService {
    */
 
   @Transactional(propagation = Propagation.REQUIRED)
-  public AnswerEntity deleteAnswer(final String answerId, final String accessToken)
+  public AnswerEntity deleteAnswer(final String answerId, final UserSession userSession)
       throws AnswerNotFoundException, AuthorizationFailedException {
 
-    UserAuthEntity userAuthToken = userDao.getUserAuthByToken(accessToken);
     AnswerEntity existingAnswer = answerDao.getAnswerByUuid(answerId);
 
-    if (userAuthToken == null) {
+    if (userSession == null) {
       throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
     }
-    if (userAuthToken.getLogoutAt() != null) {
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to delete an answer");
     }
     if (existingAnswer == null) {
       throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
     }
-    if (!isUserOwner(userAuthToken, existingAnswer) && !isUserAdmin(userAuthToken)) {
+    if (!isUserOwner(userSession, existingAnswer) && !isUserAdmin(userSession)) {
       throw new AuthorizationFailedException("ATHR-003",
           "Only the answer owner or admin can delete the answer");
     }
@@ -168,31 +271,79 @@ public class AnswerBusinessService {
 
   /**
    * This method takes the following inputs:
-   * @param accessToken   - accepts requester's access token as String value
+   * @param userSession   - accepts UserSession resolved from requester's access token
    * @param questionUuid  - accepts questionUuid String value passed from AnswerController
+   * @param cursor        - accepts the cursor returned with the previous page, null for the first
+   * @param limit         - accepts the page size asked for, null for the default page size
    *
    * and then validates the following:
    * 1. User should be signed in
    * 2. User should not have signed out after signing in
    * 3. Question to be answered, must exist in database
    *
-   * After the validations, it calls the AnswerDao class method with the AnswerEntity object
+   * After the validations, it calls the AnswerDao class method for one answer more than the page
+   * size, which tells whether there is a next page
    *
-   * @return List of AnswerEntity objects
+   * @return KeysetPage of AnswerSummary objects, newest first
    * @exception AuthorizationFailedException if invalid/expired access token is used
    * @exception InvalidQuestionException if invalid/non-existing question ID is used
+   * @exception InvalidPageCursorException if the cursor cannot be decoded
    */
 
-  public List<AnswerEntity> getAllAnswersByQuestion(final String questionUuid,
-      final String accessToken) throws InvalidQuestionException, AuthorizationFailedException {
+  public KeysetPage<AnswerSummary> getAllAnswersByQuestion(final String questionUuid,
+      final UserSession userSession, final String cursor, final Integer limit)
+      throws InvalidQuestionException, AuthorizationFailedException, InvalidPageCursorException {
     
-    UserAuthEntity userAuthToken = userDao.getUserAuthByToken(accessToken);
     QuestionEntity question = questionDao.getQuestionById(questionUuid);
 
-    if (userAuthToken == null) {
+    if (userSession == null) {
+      throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+    }
+    if (userSession.isSignedOut()) {
+      throw new AuthorizationFailedException("ATHR-002",
+          "User is signed out.Sign in first to get the answers");
+    }
+    if (question == null) {
+      throw new InvalidQuestionException("QUES-001",
+          "The question with entered uuid whose details are to be seen does not exist");
+    }
+
+    // answer ids are ints, so a larger cursor id was not produced by this listing
+    final PageCursor after = cursor == null ? null : PageCursor.decode(cursor, Integer.MAX_VALUE);
+    final int pageSize = KeysetPage.pageSize(limit);
+    return KeysetPage.of(answerDao.getAnswersPageByQuestion(question, after, pageSize + 1),
+        pageSize, answer -> new PageCursor(answer.getDate(), answer.getId()));
+  }
+
+  /**
+   * This method takes the following inputs:
+   * @param userSession   - accepts UserSession resolved from requester's access token
+   * @param questionUuid  - accepts questionUuid String value passed from AnswerController
+   *
+   * and then validates the following:
+   * 1. User should be signed in
+   * 2. User should not have signed out after signing in
+   * 3. Question to be answered, must exist in database
+   *
+   * After the validations, it returns the answers of the question, which are read from the
+   * AnswerDao class only when the stream is consumed, through a database cursor
+   *
+   * @return RowStream of AnswerSummary objects, newest first
+   * @exception AuthorizationFailedException if invalid/expired access token is used
+   * @exception InvalidQuestionException if invalid/non-existing question ID is used
+   * @exception ServiceUnavailableException if too many listings are already being streamed
+   */
+
+  public RowStream<AnswerSummary> streamAllAnswersByQuestion(final String questionUuid,
+      final UserSession userSession)
+      throws InvalidQuestionException, AuthorizationFailedException, ServiceUnavailableException {
+
+    QuestionEntity question = questionDao.getQuestionById(questionUuid);
+
+    if (userSession == null) {
       throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
     }
-    if (userAuthToken.getLogoutAt() != null) {
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to get the answers");
     }
@@ -200,32 +351,49 @@ public class AnswerBusinessService {
       throw new InvalidQuestionException("QUES-001",
           "The question with entered uuid whose details are to be seen does not exist");
     }
-    return answerDao.getAllAnswersByQuestion(question);
+
+    return rowStreams.readOnly(action -> answerDao
+        .scrollAnswersByQuestion(question, rowStreams.getFetchSize(), action));
   }
 
   /**
-   * This method takes the user authentication token object and verifies if the user is an admin
+   * This method takes the user session object and verifies if the user is an admin
    *
-   * @param userAuthToken - accepts the UserAuthEntity object
+   * @param userSession - accepts the UserSession object
    * @return boolean value after the required validation
    */
 
-  public boolean isUserAdmin(UserAuthEntity userAuthToken) {
-    UserEntity loggedInUser = userAuthToken.getUserId();
-    return loggedInUser.getRole().equals("admin");
+  public boolean isUserAdmin(UserSession userSession) {
+    return userSession.isAdmin();
   }
 
     /**
-     * This method takes the user authentication token object and an answer object and verifies,
+     * This method takes the user session object and an answer object and verifies,
      * if the logged-in user is the same as the owner of the answer
      *
-     * @param userAuthToken - accepts the UserAuthEntity object
+     * @param userSession - accepts the UserSession object
      * @param existingAnswer - accepts the AnswerEntity object
      * @return boolean value after the required validation
      */
 
-  public boolean isUserOwner(UserAuthEntity userAuthToken, AnswerEntity existingAnswer) {
-    UserEntity loggedInUser = userAuthToken.getUserId();
-    return loggedInUser.equals(existingAnswer.getUser());
+  public boolean isUserOwner(UserSession userSession, AnswerEntity existingAnswer) {
+    return userSession.getUserId() == existingAnswer.getUser().getId();
+  }
+
+  /**
+   * This method checks the content of an answer of a bulk request
+   *
+   * @param content - accepts the content of the answer
+   * @return the error message, or null if the content is valid
+   */
+
+  private String validateContent(final String content) {
+    if (content == null || content.trim().isEmpty()) {
+      return "Answer content is required";
+    }
+    if (content.length() > MAX_ANSWER_LENGTH) {
+      return "Answer content can be at most " + MAX_ANSWER_LENGTH + " characters";
+    }
+    return null;
   }
 }
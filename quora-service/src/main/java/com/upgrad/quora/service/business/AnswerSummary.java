@@ -0,0 +1,46 @@
+package com.upgrad.quora.service.business;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Read model of a listed answer and the content of its question. Selected directly from the
+ * ANSWER and QUESTION columns by the listing queries, so listing neither loads the authors of the
+ * answer and question nor tracks the rows in the persistence context.
+ */
+public final class AnswerSummary {
+
+  private final int id;
+  private final String uuid;
+  private final String ans;
+  private final ZonedDateTime date;
+  private final String questionContent;
+
+  public AnswerSummary(final int id, final String uuid, final String ans,
+      final ZonedDateTime date, final String questionContent) {
+    this.id = id;
+    this.uuid = uuid;
+    this.ans = ans;
+    this.date = date;
+    this.questionContent = questionContent;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getUuid() {
+    return uuid;
+  }
+
+  public String getAns() {
+    return ans;
+  }
+
+  public ZonedDateTime getDate() {
+    return date;
+  }
+
+  public String getQuestionContent() {
+    return questionContent;
+  }
+}
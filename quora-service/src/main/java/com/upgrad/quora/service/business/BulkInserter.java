@@ -0,0 +1,110 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.exception.BulkLimitExceededException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Inserts the rows of a bulk request in transactions of a bounded size.
+ *
+ * Each transaction persists up to transactionSize rows, which Hibernate flushes at commit in JDBC
+ * batches. Keeping the transactions bounded stops a large request from holding locks and a growing
+ * persistence context for its whole duration.
+ *
+ * Rows failing their bean validation constraints are left out before any transaction. When a
+ * transaction fails anyway, its rows are split in halves which are inserted in transactions of
+ * their own, down to the single rows which fail on their own. One bad row thereby only fails
+ * itself, at the cost of about two transactions per halving; the rows of the other transactions
+ * are not affected at all.
+ */
+@Component
+public class BulkInserter {
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private Validator validator;
+
+  private final int maxItems;
+  private final int transactionSize;
+
+  /**
+   * @param maxItems        - maximum number of items in one bulk request
+   * @param transactionSize - maximum number of rows inserted per transaction
+   */
+  public BulkInserter(@Value("${quora.bulk.max-items:1000}") final int maxItems,
+      @Value("${quora.bulk.transaction-size:500}") final int transactionSize) {
+    this.maxItems = maxItems;
+    this.transactionSize = transactionSize;
+  }
+
+  /**
+   * @param itemCount - number of items in the bulk request
+   * @throws BulkLimitExceededException - if the request holds more than maxItems items
+   */
+  public void checkItemCount(final int itemCount) throws BulkLimitExceededException {
+    if (itemCount > maxItems) {
+      throw new BulkLimitExceededException("BLK-001",
+          "A bulk request can hold at most " + maxItems + " items");
+    }
+  }
+
+  /**
+   * @param rows         - rows to be inserted
+   * @param persistChunk - persists a chunk of the rows inside the current transaction; it is run
+   *                     again on the rows of a failed transaction, so it has to reset any state
+   *                     left on them by the rolled back attempt
+   * @return the rows which failed validation or could not be inserted, compared by identity
+   */
+  public <T> Set<T> insert(final List<T> rows, final Consumer<List<T>> persistChunk) {
+    final Set<T> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+    final List<T> validRows = new ArrayList<>(rows.size());
+    for (T row : rows) {
+      if (validator.validate(row).isEmpty()) {
+        validRows.add(row);
+      } else {
+        failed.add(row);
+      }
+    }
+
+    for (int from = 0; from < validRows.size(); from += transactionSize) {
+      insertChunk(new ArrayList<>(validRows.subList(from,
+          Math.min(from + transactionSize, validRows.size()))), persistChunk, failed);
+    }
+    return failed;
+  }
+
+  /**
+   * Inserts the chunk in one transaction, splitting it in halves if that fails. A transaction
+   * which could not even be started fails the whole chunk, since its halves would fail the same.
+   */
+  private <T> void insertChunk(final List<T> chunk, final Consumer<List<T>> persistChunk,
+      final Set<T> failed) {
+    try {
+      transactionTemplate.execute(status -> {
+        persistChunk.accept(chunk);
+        return null;
+      });
+    } catch (RuntimeException e) {
+      if (chunk.size() == 1 || e instanceof CannotCreateTransactionException) {
+        failed.addAll(chunk);
+        return;
+      }
+      final int half = chunk.size() / 2;
+      insertChunk(new ArrayList<>(chunk.subList(0, half)), persistChunk, failed);
+      insertChunk(new ArrayList<>(chunk.subList(half, chunk.size())), persistChunk, failed);
+    }
+  }
+}
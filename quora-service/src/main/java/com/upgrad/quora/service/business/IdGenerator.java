@@ -0,0 +1,20 @@
+package com.upgrad.quora.service.business;
+
+import java.util.UUID;
+
+/**
+ * A way of generating the uuids of new rows. The generator used for new rows is picked by its
+ * algorithm name, so it can be changed without touching the create paths.
+ */
+public interface IdGenerator {
+
+  /**
+   * @return name of the algorithm, as configured in "quora.ids.algorithm"
+   */
+  String getAlgorithm();
+
+  /**
+   * @return a new uuid, safe to call from any number of threads at once
+   */
+  UUID generate();
+}
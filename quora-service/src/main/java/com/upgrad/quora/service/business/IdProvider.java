@@ -0,0 +1,33 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Generates the uuids of new users, sessions, questions and answers with the IdGenerator named in
+ * "quora.ids.algorithm".
+ */
+@Component
+public class IdProvider {
+
+  private final IdGenerator activeGenerator;
+
+  public IdProvider(final List<IdGenerator> generators,
+      @Value("${quora.ids.algorithm:uuid-v7}") final String algorithm) {
+    this.activeGenerator = generators.stream()
+        .filter(generator -> generator.getAlgorithm().equals(algorithm))
+        .findFirst()
+        .orElseThrow(() -> new UnexpectedException(GenericErrorCode.GEN_001));
+  }
+
+  /**
+   * @return a new uuid in its string form, as stored in the UUID columns
+   */
+  public String nextId() {
+    return activeGenerator.generate().toString();
+  }
+}
@@ -0,0 +1,106 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-held HMAC keys used by the stateless token mode.
+ *
+ * When "quora.jwt.stateless" is enabled, signin signs tokens with the active key and writes its key
+ * id in the token header. Requests are then authorized by verifying the signature, issuer,
+ * audience and expiry of the token locally instead of looking it up in USER_AUTH. Older keys can be
+ * kept in "quora.jwt.keys" so that tokens signed before a key rotation stay valid until they
+ * expire.
+ */
+@Component
+public class JwtKeyring {
+
+  private final boolean stateless;
+
+  private final String activeKeyId;
+
+  private final Map<String, JwtTokenProvider> providers = new HashMap<>();
+
+  /**
+   * @param stateless   - whether tokens are verified locally instead of in the DB
+   * @param activeKeyId - key id used to sign new tokens
+   * @param keys        - comma separated list of keyId:secret pairs
+   */
+  public JwtKeyring(@Value("${quora.jwt.stateless:false}") final boolean stateless,
+      @Value("${quora.jwt.active-key-id:}") final String activeKeyId,
+      @Value("${quora.jwt.keys:}") final String keys) {
+    this.stateless = stateless;
+    this.activeKeyId = activeKeyId;
+
+    for (String key : keys.split(",")) {
+      String[] keyIdAndSecret = key.trim().split(":", 2);
+      if (keyIdAndSecret.length == 2) {
+        providers.put(keyIdAndSecret[0], new JwtTokenProvider(keyIdAndSecret[0], keyIdAndSecret[1]));
+      }
+    }
+
+    if (stateless && !providers.containsKey(activeKeyId)) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001);
+    }
+  }
+
+  public boolean isStateless() {
+    return stateless;
+  }
+
+  /**
+   * Generates a token signed with the active key, carrying the id and role of the user.
+   *
+   * @param userEntity      - user signing in
+   * @param issuedDateTime  - current time
+   * @param expiresDateTime - expiry time of the token
+   * @return - generated JWT token
+   */
+  public String generateToken(final UserEntity userEntity, final ZonedDateTime issuedDateTime,
+      final ZonedDateTime expiresDateTime) {
+    return providers.get(activeKeyId).generateToken(userEntity.getUuid(), userEntity.getId(),
+        userEntity.getRole(), issuedDateTime, expiresDateTime);
+  }
+
+  /**
+   * Verifies the token with the key named in its header. An expired token is still resolved, into
+   * an expired session, so that it is rejected as signed out as in the default mode.
+   *
+   * @param accessToken - access token sent in the authorization header
+   * @return UserSession built from the token claims, or null if the token is not valid
+   */
+  public UserSession verify(final String accessToken) {
+    try {
+      JwtTokenProvider provider = providers.get(JWT.decode(accessToken).getKeyId());
+      if (provider == null) {
+        return null;
+      }
+
+      DecodedJWT token = provider.verifySignature(accessToken);
+      List<String> audience = token.getAudience();
+      Long userId = token.getClaim(JwtTokenProvider.USER_ID_CLAIM).asLong();
+      if (audience == null || audience.size() != 1 || userId == null
+          || token.getExpiresAt() == null) {
+        return null;
+      }
+
+      return new UserSession(userId, audience.get(0),
+          token.getClaim(JwtTokenProvider.ROLE_CLAIM).asString(),
+          ZonedDateTime.ofInstant(token.getExpiresAt().toInstant(), ZoneId.systemDefault()), null);
+    } catch (JWTVerificationException e) {
+      return null;
+    }
+  }
+}
@@ -1,12 +1,13 @@
 package com.upgrad.quora.service.business;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.upgrad.quora.service.common.GenericErrorCode;
 import com.upgrad.quora.service.common.UnexpectedException;
 
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoField;
 import java.util.Date;
 import java.util.UUID;
 
@@ -15,17 +16,43 @@ import java.util.UUID;
  */
 public class JwtTokenProvider {
 
-  private static final String TOKEN_ISSUER = "https://quora.io";
+  static final String TOKEN_ISSUER = "https://quora.io";
+
+  static final String USER_ID_CLAIM = "uid";
+
+  static final String ROLE_CLAIM = "role";
+
+  /** Tokens expire after hours, so this leeway lets verifySignature accept any expired token */
+  private static final long EXPIRED_TOKEN_LEEWAY_SECONDS = Integer.MAX_VALUE;
+
+  private final String keyId;
 
   private final Algorithm algorithm;
 
+  private final JWTVerifier verifier;
+
+  private final JWTVerifier signatureVerifier;
+
   /**
    * A constructor for JwtTokenProvider class which receives user password as an argument to be used
    * in the signature part of JWT access token.
    */
   public JwtTokenProvider(final String secret) {
+    this(null, secret);
+  }
+
+  /**
+   * A constructor for JwtTokenProvider class which receives a key id and a server-held secret. The
+   * key id is written in the header of every token, so that the matching secret can be found
+   * again when the token is verified.
+   */
+  public JwtTokenProvider(final String keyId, final String secret) {
     try {
-      algorithm = Algorithm.HMAC512(secret);
+      this.keyId = keyId;
+      this.algorithm = Algorithm.HMAC512(secret);
+      this.verifier = JWT.require(algorithm).withIssuer(TOKEN_ISSUER).build();
+      this.signatureVerifier = JWT.require(algorithm).withIssuer(TOKEN_ISSUER)
+          .acceptExpiresAt(EXPIRED_TOKEN_LEEWAY_SECONDS).build();
     } catch (IllegalArgumentException e) {
       throw new UnexpectedException(GenericErrorCode.GEN_001);
     }
@@ -44,15 +71,65 @@ public class JwtTokenProvider {
   public String generateToken(final String userUuid, final ZonedDateTime issuedDateTime,
       final ZonedDateTime expiresDateTime) {
 
-    final Date issuedAt = new Date(issuedDateTime.getLong(ChronoField.INSTANT_SECONDS));
-    final Date expiresAt = new Date(expiresDateTime.getLong(ChronoField.INSTANT_SECONDS));
+    final Date issuedAt = Date.from(issuedDateTime.toInstant());
+    final Date expiresAt = Date.from(expiresDateTime.toInstant());
 
     return JWT.create().withIssuer(TOKEN_ISSUER) //
-        .withKeyId(UUID.randomUUID().toString())
+        .withKeyId(keyId != null ? keyId : UUID.randomUUID().toString())
         .withAudience(userUuid) //
         .withIssuedAt(issuedAt)
         .withExpiresAt(expiresAt)
         .sign(algorithm);
   }
 
+  /**
+   * This method additionally stores the user id and role of the user in the payload, so that
+   * the token can be authorized without looking it up in the DB. The random token id keeps the
+   * tokens of two signins of the user within the same second apart, as the times in the payload
+   * are rounded to the second.
+   *
+   * @param userUuid        - uuid of the user
+   * @param userId          - id of the user
+   * @param role            - role of the user
+   * @param issuedDateTime  - current time
+   * @param expiresDateTime - expiry time of the JWT token
+   * @return - generated JWT token
+   */
+  public String generateToken(final String userUuid, final long userId, final String role,
+      final ZonedDateTime issuedDateTime, final ZonedDateTime expiresDateTime) {
+
+    return JWT.create().withIssuer(TOKEN_ISSUER) //
+        .withKeyId(keyId)
+        .withJWTId(UUID.randomUUID().toString())
+        .withAudience(userUuid) //
+        .withClaim(USER_ID_CLAIM, userId)
+        .withClaim(ROLE_CLAIM, role)
+        .withIssuedAt(Date.from(issuedDateTime.toInstant()))
+        .withExpiresAt(Date.from(expiresDateTime.toInstant()))
+        .sign(algorithm);
+  }
+
+  /**
+   * This method checks the signature, issuer and expiry time of the JWT token.
+   *
+   * @param token - JWT token to be verified
+   * @return - decoded JWT token
+   * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is not valid
+   */
+  public DecodedJWT verifyToken(final String token) {
+    return verifier.verify(token);
+  }
+
+  /**
+   * This method checks the signature and issuer of the JWT token but accepts an expired one, so
+   * that the caller can tell an expired token from an invalid one.
+   *
+   * @param token - JWT token to be verified
+   * @return - decoded JWT token
+   * @throws com.auth0.jwt.exceptions.JWTVerificationException if the token is not valid
+   */
+  public DecodedJWT verifySignature(final String token) {
+    return signatureVerifier.verify(token);
+  }
+
 }
@@ -1,36 +1,40 @@
 package com.upgrad.quora.service.business;
 
 
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
 
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 
+/**
+ * Hashes and verifies passwords with the configured PasswordHashingEngine. New hashes are made by
+ * the engine named in "quora.password-hashing.algorithm"; stored hashes are verified by the
+ * engine named in the hash itself.
+ */
 @Component
 public class PasswordCryptographyProvider {
 
-  private final static char[] hexArray = "0123456789ABCDEF".toCharArray();
-  private static final String SECRET_KEY_ALGORITHM = "PBKDF2WithHmacSHA512";
-  private static final int HASHING_ITERATIONS = 1000;
-  private static final int HASHING_KEY_LENGTH = 64;
+  private final Map<String, PasswordHashingEngine> engines = new HashMap<>();
 
-  /**
-   * This method re-generates hashed Password from raw-password and salt. This will be used during
-   * authentication.
-   *
-   * @param password char array.
-   * @param salt     byte array.
-   * @return byte array of hashed password.
-   */
-  public static String encrypt(final String password, String salt) {
-    return bytesToHex(hashPassword(password.toCharArray(), getBase64DecodedStringAsBytes(salt)));
+  private final PasswordHashingEngine activeEngine;
+
+  public PasswordCryptographyProvider(final List<PasswordHashingEngine> engines,
+      @Value("${quora.password-hashing.algorithm:pbkdf2-sha512}") final String algorithm) {
+    for (PasswordHashingEngine engine : engines) {
+      this.engines.put(engine.getAlgorithm(), engine);
+    }
+    this.activeEngine = this.engines.get(algorithm);
+    if (activeEngine == null) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001);
+    }
   }
 
   /**
@@ -45,54 +49,56 @@ public class PasswordCryptographyProvider {
     return saltBytes;
   }
 
-  /**
-   * This method generates hashed Password
-   *
-   * @param password char array.
-   * @param salt     byte array.
-   * @return byte array of hashed password.
-   */
-  private static byte[] hashPassword(final char[] password, final byte[] salt) {
-    try {
-      SecretKeyFactory skf = SecretKeyFactory.getInstance(SECRET_KEY_ALGORITHM);
-      PBEKeySpec spec = new PBEKeySpec(password, salt, HASHING_ITERATIONS, HASHING_KEY_LENGTH);
-      SecretKey key = skf.generateSecret(spec);
-      byte[] res = key.getEncoded();
-      return res;
-    } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  private static String bytesToHex(byte[] bytes) {
-    char[] hexChars = new char[bytes.length * 2];
-    for (int j = 0; j < bytes.length; j++) {
-      int v = bytes[j] & 0xFF;
-      hexChars[j * 2] = hexArray[v >>> 4];
-      hexChars[j * 2 + 1] = hexArray[v & 0x0F];
-    }
-    return new String(hexChars);
-  }
-
   private static String getBase64EncodedBytesAsString(byte[] bytes) {
     return Base64.getEncoder().encodeToString(bytes);
   }
 
-  private static byte[] getBase64DecodedStringAsBytes(String decode) {
-    return Base64.getDecoder().decode(decode);
-  }
-
   /**
    * This method generates Salt and hashed Password
    *
    * @param password char array.
-   * @return String array with [0] encoded salt [1] hashed password.
+   * @return String array with [0] encoded salt [1] hashed password in the stored format.
    */
   public String[] encrypt(final String password) {
     byte[] salt = generateSaltBytes();
-    byte[] hashedPassword = hashPassword(password.toCharArray(), salt);
-    return new String[]{getBase64EncodedBytesAsString(salt), bytesToHex(hashedPassword)};
+    PasswordHash hashedPassword = activeEngine.hash(password, salt);
+    return new String[]{getBase64EncodedBytesAsString(salt), hashedPassword.format()};
   }
-}
 
+  /**
+   * This method checks a raw password against the stored password and salt of a user. This will
+   * be used during authentication.
+   *
+   * @param password       - raw password entered by the user
+   * @param storedSalt     - salt column of the user
+   * @param storedPassword - password column of the user
+   * @return true if the password matches
+   */
+  public boolean matches(final String password, final String storedSalt,
+      final String storedPassword) {
+    try {
+      PasswordHash storedHash = PasswordHash.parse(storedPassword, storedSalt);
+      PasswordHashingEngine engine = engines.get(storedHash.getAlgorithm());
+      return engine != null && engine.verify(password, storedHash);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
 
+  /**
+   * This method checks whether a stored password was hashed with another algorithm or cost than
+   * the current one, and should be hashed again once the raw password is known.
+   *
+   * @param storedSalt     - salt column of the user
+   * @param storedPassword - password column of the user
+   * @return true if the password should be hashed again
+   */
+  public boolean needsRehash(final String storedSalt, final String storedPassword) {
+    try {
+      PasswordHash storedHash = PasswordHash.parse(storedPassword, storedSalt);
+      return PasswordHash.isLegacyFormat(storedPassword) || !activeEngine.isCurrent(storedHash);
+    } catch (IllegalArgumentException e) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.upgrad.quora.service.business;
+
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A password hash together with the algorithm and parameters it was made with. It is stored in
+ * the password column in the format "$algorithm$name=value,...$salt$hash", with the salt and
+ * hash Base64 encoded, e.g. "$pbkdf2-sha512$i=1000,l=512$...$...".
+ *
+ * Passwords hashed before this format was introduced hold only the hex encoded hash, with the
+ * salt in the salt column. They are read as PBKDF2 hashes with 1000 iterations and a 64 bit key.
+ */
+public final class PasswordHash {
+
+  static final String LEGACY_ALGORITHM = "pbkdf2-sha512";
+
+  private static final String SEPARATOR = "$";
+
+  private static final Map<String, Integer> LEGACY_PARAMETERS;
+
+  static {
+    Map<String, Integer> parameters = new LinkedHashMap<>();
+    parameters.put(Pbkdf2PasswordHashingEngine.ITERATIONS, 1000);
+    parameters.put(Pbkdf2PasswordHashingEngine.KEY_LENGTH, 64);
+    LEGACY_PARAMETERS = Collections.unmodifiableMap(parameters);
+  }
+
+  private final String algorithm;
+  private final Map<String, Integer> parameters;
+  private final byte[] salt;
+  private final byte[] hash;
+
+  public PasswordHash(final String algorithm, final Map<String, Integer> parameters,
+      final byte[] salt, final byte[] hash) {
+    this.algorithm = algorithm;
+    this.parameters = Collections.unmodifiableMap(new LinkedHashMap<>(parameters));
+    this.salt = salt.clone();
+    this.hash = hash.clone();
+  }
+
+  /**
+   * Reads a hash from the password and salt columns of a user.
+   *
+   * @param storedPassword - value of the password column
+   * @param storedSalt     - value of the salt column, only used by legacy hashes
+   * @return the parsed hash
+   * @throws IllegalArgumentException if the stored values are not a valid hash
+   */
+  public static PasswordHash parse(final String storedPassword, final String storedSalt) {
+    if (isLegacyFormat(storedPassword)) {
+      return new PasswordHash(LEGACY_ALGORITHM, LEGACY_PARAMETERS,
+          Base64.getDecoder().decode(storedSalt), hexToBytes(storedPassword));
+    }
+
+    String[] fields = storedPassword.split("\\$", -1);
+    if (fields.length != 5) {
+      throw new IllegalArgumentException("Malformed password hash");
+    }
+
+    Map<String, Integer> parameters = new LinkedHashMap<>();
+    for (String parameter : fields[2].split(",")) {
+      String[] nameAndValue = parameter.split("=", 2);
+      if (nameAndValue.length != 2) {
+        throw new IllegalArgumentException("Malformed password hash parameter");
+      }
+      parameters.put(nameAndValue[0], Integer.valueOf(nameAndValue[1]));
+    }
+
+    return new PasswordHash(fields[1], parameters, Base64.getDecoder().decode(fields[3]),
+        Base64.getDecoder().decode(fields[4]));
+  }
+
+  /**
+   * @param storedPassword - value of the password column
+   * @return true if the value was stored before the self-describing format was introduced
+   */
+  public static boolean isLegacyFormat(final String storedPassword) {
+    return !storedPassword.startsWith(SEPARATOR);
+  }
+
+  /**
+   * @return the hash in the stored format
+   */
+  public String format() {
+    StringBuilder formatted = new StringBuilder(SEPARATOR).append(algorithm).append(SEPARATOR);
+    String delimiter = "";
+    for (Map.Entry<String, Integer> parameter : parameters.entrySet()) {
+      formatted.append(delimiter).append(parameter.getKey()).append('=')
+          .append(parameter.getValue());
+      delimiter = ",";
+    }
+    return formatted.append(SEPARATOR).append(Base64.getEncoder().encodeToString(salt))
+        .append(SEPARATOR).append(Base64.getEncoder().encodeToString(hash)).toString();
+  }
+
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  /**
+   * @param name - name of the parameter
+   * @return value of the parameter, or null if the hash does not have it
+   */
+  public Integer getParameter(final String name) {
+    return parameters.get(name);
+  }
+
+  public byte[] getSalt() {
+    return salt.clone();
+  }
+
+  public byte[] getHash() {
+    return hash.clone();
+  }
+
+  private static byte[] hexToBytes(final String hex) {
+    if (hex.length() % 2 != 0) {
+      throw new IllegalArgumentException("Malformed legacy password hash");
+    }
+    byte[] bytes = new byte[hex.length() / 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int high = Character.digit(hex.charAt(2 * i), 16);
+      int low = Character.digit(hex.charAt(2 * i + 1), 16);
+      if (high < 0 || low < 0) {
+        throw new IllegalArgumentException("Malformed legacy password hash");
+      }
+      bytes[i] = (byte) (high << 4 | low);
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,38 @@
+package com.upgrad.quora.service.business;
+
+/**
+ * A password hashing algorithm. Engines are looked up by the algorithm name written at the start
+ * of every stored hash, so the algorithm and cost of new hashes can be changed while hashes made
+ * with older settings can still be verified.
+ */
+public interface PasswordHashingEngine {
+
+  /**
+   * @return name of the algorithm, as written in the stored hash
+   */
+  String getAlgorithm();
+
+  /**
+   * Hashes the password with the current parameters of the engine.
+   *
+   * @param password - raw password
+   * @param salt     - random salt
+   * @return the hash together with the parameters it was made with
+   */
+  PasswordHash hash(String password, byte[] salt);
+
+  /**
+   * Hashes the password again with the parameters of the stored hash and compares the results.
+   *
+   * @param password   - raw password entered by the user
+   * @param storedHash - hash stored for the user
+   * @return true if the password matches the stored hash
+   */
+  boolean verify(String password, PasswordHash storedHash);
+
+  /**
+   * @param storedHash - hash stored for the user
+   * @return true if the stored hash was made with the current parameters of the engine
+   */
+  boolean isCurrent(PasswordHash storedHash);
+}
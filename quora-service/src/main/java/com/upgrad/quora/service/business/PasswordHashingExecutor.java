@@ -0,0 +1,124 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+
+/**
+ * Dedicated pool for the PBKDF2 password hashing done by signup and signin.
+ *
+ * Hashing is CPU bound, so the pool has one thread per core by default and a bounded queue in
+ * front of it. When the queue is full the task is rejected straight away with a
+ * ServiceUnavailableException instead of piling up, so that a burst of signins cannot take the
+ * request threads away from the other endpoints. Pool and queue usage are published under the
+ * "passwordHashing" executor name.
+ *
+ * Only the hashing runs on that pool. What follows it, such as writing the new user or session,
+ * waits on the database rather than the CPU, so it runs on a second pool of its own, published
+ * under the "passwordHashingDatabase" executor name. Its queue is not bounded, as every task there
+ * has been admitted by the bounded hashing queue first.
+ */
+@Component
+public class PasswordHashingExecutor implements MeterBinder {
+
+  private static final String EXECUTOR_NAME = "passwordHashing";
+
+  private static final String DATABASE_EXECUTOR_NAME = "passwordHashingDatabase";
+
+  private final ThreadPoolExecutor executor;
+
+  private final ThreadPoolExecutor databaseExecutor;
+
+  /**
+   * Work done with the result of the hashing, which may throw checked exceptions.
+   *
+   * @param <H> - type of the result of the hashing
+   * @param <T> - type of the result of the work
+   */
+  @FunctionalInterface
+  public interface HashedTask<H, T> {
+
+    T call(H hashed) throws Exception;
+  }
+
+  /**
+   * @param threads         - number of hashing threads, 0 for one per available processor
+   * @param queueCapacity   - number of tasks that can wait for a free thread
+   * @param databaseThreads - number of threads doing the database work that follows the hashing
+   */
+  public PasswordHashingExecutor(@Value("${quora.password-hashing.threads:0}") final int threads,
+      @Value("${quora.password-hashing.queue-capacity:64}") final int queueCapacity,
+      @Value("${quora.password-hashing.database-threads:4}") final int databaseThreads) {
+    final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.databaseExecutor = new ThreadPoolExecutor(databaseThreads, databaseThreads, 0L,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+        new CustomizableThreadFactory("password-hashing-database-"));
+  }
+
+  /**
+   * Runs the hashing on the hashing pool, then the task on the database pool with its result.
+   *
+   * @param hashing - the password hashing, its checked exceptions complete the future
+   * @param task    - work done with the result of the hashing, such as writing it to the database,
+   *                its checked exceptions complete the future
+   * @return future completed with the result of the task, or exceptionally with the exception of
+   *     the hashing or the task
+   * @throws ServiceUnavailableException - if the hashing queue is full
+   */
+  public <H, T> CompletableFuture<T> submit(final Callable<H> hashing,
+      final HashedTask<H, T> task) throws ServiceUnavailableException {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        final H hashed;
+        try {
+          hashed = hashing.call();
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+          return;
+        }
+        databaseExecutor.execute(() -> {
+          try {
+            future.complete(task.call(hashed));
+          } catch (Exception e) {
+            future.completeExceptionally(e);
+          }
+        });
+      });
+    } catch (RejectedExecutionException e) {
+      throw new ServiceUnavailableException("SRV-001",
+          "Too many sign in requests, please try again later");
+    }
+    return future;
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Collections.emptyList()).bindTo(registry);
+    new ExecutorServiceMetrics(databaseExecutor, DATABASE_EXECUTOR_NAME, Collections.emptyList())
+        .bindTo(registry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+    databaseExecutor.shutdown();
+  }
+}
@@ -0,0 +1,168 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+
+/**
+ * PBKDF2 with HMAC-SHA512, producing the same output as the JDK's PBKDF2WithHmacSHA512 key
+ * factory.
+ *
+ * The key factory looks up a provider and allocates a key spec, a key and a fresh Mac for every
+ * hash. This engine instead keeps one Mac per thread and re-keys it with each password, which
+ * leaves the HMAC rounds as the only per-hash cost. The iteration count and key length of new
+ * hashes are configured with "quora.password-hashing.pbkdf2.*".
+ */
+@Component
+public class Pbkdf2PasswordHashingEngine implements PasswordHashingEngine {
+
+  static final String ITERATIONS = "i";
+
+  static final String KEY_LENGTH = "l";
+
+  private static final String ALGORITHM = "pbkdf2-sha512";
+
+  private static final String MAC_ALGORITHM = "HmacSHA512";
+
+  private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+    try {
+      return Mac.getInstance(MAC_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+    }
+  });
+
+  private final int iterations;
+
+  private final int keyLength;
+
+  /**
+   * @param iterations - number of HMAC iterations of new hashes
+   * @param keyLength  - length in bits of new hashes, a multiple of 8
+   */
+  public Pbkdf2PasswordHashingEngine(
+      @Value("${quora.password-hashing.pbkdf2.iterations:1000}") final int iterations,
+      @Value("${quora.password-hashing.pbkdf2.key-length:512}") final int keyLength) {
+    if (iterations < 1 || keyLength < 8 || keyLength % 8 != 0) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001);
+    }
+    this.iterations = iterations;
+    this.keyLength = keyLength;
+  }
+
+  @Override
+  public String getAlgorithm() {
+    return ALGORITHM;
+  }
+
+  @Override
+  public PasswordHash hash(final String password, final byte[] salt) {
+    Map<String, Integer> parameters = new LinkedHashMap<>();
+    parameters.put(ITERATIONS, iterations);
+    parameters.put(KEY_LENGTH, keyLength);
+    return new PasswordHash(ALGORITHM, parameters, salt,
+        derive(password, salt, iterations, keyLength));
+  }
+
+  @Override
+  public boolean verify(final String password, final PasswordHash storedHash) {
+    Integer storedIterations = storedHash.getParameter(ITERATIONS);
+    Integer storedKeyLength = storedHash.getParameter(KEY_LENGTH);
+    if (storedIterations == null || storedIterations < 1 || storedKeyLength == null
+        || storedKeyLength < 8 || storedKeyLength % 8 != 0) {
+      return false;
+    }
+    return MessageDigest.isEqual(storedHash.getHash(),
+        derive(password, storedHash.getSalt(), storedIterations, storedKeyLength));
+  }
+
+  @Override
+  public boolean isCurrent(final PasswordHash storedHash) {
+    return ALGORITHM.equals(storedHash.getAlgorithm())
+        && Integer.valueOf(iterations).equals(storedHash.getParameter(ITERATIONS))
+        && Integer.valueOf(keyLength).equals(storedHash.getParameter(KEY_LENGTH));
+  }
+
+  /**
+   * PBKDF2 as defined in RFC 8018, section 5.2.
+   */
+  private static byte[] derive(final String password, final byte[] salt, final int iterations,
+      final int keyLength) {
+    final Mac mac = MACS.get();
+    try {
+      mac.init(new PasswordKey(password.getBytes(StandardCharsets.UTF_8)));
+    } catch (InvalidKeyException e) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+    }
+
+    final int macLength = mac.getMacLength();
+    final byte[] derivedKey = new byte[keyLength / 8];
+    final byte[] block = new byte[macLength];
+    final byte[] u = new byte[macLength];
+    try {
+      for (int blockIndex = 1, offset = 0; offset < derivedKey.length;
+          blockIndex++, offset += macLength) {
+        mac.update(salt);
+        mac.update((byte) (blockIndex >>> 24));
+        mac.update((byte) (blockIndex >>> 16));
+        mac.update((byte) (blockIndex >>> 8));
+        mac.update((byte) blockIndex);
+        mac.doFinal(u, 0);
+        System.arraycopy(u, 0, block, 0, macLength);
+
+        for (int i = 1; i < iterations; i++) {
+          mac.update(u);
+          mac.doFinal(u, 0);
+          for (int j = 0; j < macLength; j++) {
+            block[j] ^= u[j];
+          }
+        }
+        System.arraycopy(block, 0, derivedKey, offset,
+            Math.min(macLength, derivedKey.length - offset));
+      }
+    } catch (ShortBufferException e) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+    }
+    return derivedKey;
+  }
+
+  /**
+   * Raw HMAC key holding the password bytes. Unlike SecretKeySpec it accepts an empty password.
+   */
+  private static final class PasswordKey implements SecretKey {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] encoded;
+
+    private PasswordKey(final byte[] encoded) {
+      this.encoded = encoded;
+    }
+
+    @Override
+    public String getAlgorithm() {
+      return MAC_ALGORITHM;
+    }
+
+    @Override
+    public String getFormat() {
+      return "RAW";
+    }
+
+    @Override
+    public byte[] getEncoded() {
+      return encoded.clone();
+    }
+  }
+}
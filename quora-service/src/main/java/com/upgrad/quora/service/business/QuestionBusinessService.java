@@ -1,97 +1,204 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.BulkItemResult;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.common.RowStream;
 import com.upgrad.quora.service.dao.QuestionDao;
 import com.upgrad.quora.service.dao.UserDao;
 import com.upgrad.quora.service.entity.QuestionEntity;
-import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.BulkLimitExceededException;
+import com.upgrad.quora.service.exception.InvalidPageCursorException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class QuestionBusinessService {
 
+  /** Length of the CONTENT column of the QUESTION table */
+  private static final int MAX_CONTENT_LENGTH = 500;
+
   @Autowired
   private UserDao userDao;
 
   @Autowired
   private QuestionDao questionDao;
 
+  @Autowired
+  private RowStreams rowStreams;
+
+  @Autowired
+  private BulkInserter bulkInserter;
+
   /**
    * Create Question Business Service
    * @param questionEntity     - accepts QuestionEntity object passed from QuestionController
-   * @param authorizationToken - accepts String containing requester's authorization code
-   * @description Validates if the requester with the passed authorizationToken has signed in
-   * and not signed out. Prepares the questionEntity with the userId from the UserAuthEntity.
+   * @param userSession        - accepts UserSession resolved from the requester's authorization code
+   * @description Validates if the requester with the passed userSession has signed in
+   * and not signed out. Prepares the questionEntity with the userId from the UserSession.
    * Calls the questionDao with the questionEntity as a parameter.
    * @return QuestionEntity object
-   * @throws AuthorizationFailedException if invalid/expired authorizationToken is used
+   * @throws AuthorizationFailedException if invalid/expired authorization code is used
    */
   @Transactional(propagation = Propagation.REQUIRED)
   public QuestionEntity createQuestion(QuestionEntity questionEntity,
-      final String authorizationToken) throws AuthorizationFailedException {
+      final UserSession userSession) throws AuthorizationFailedException {
 
     // Login Validations
-    UserAuthEntity userAuthEntity = userDao.getUserAuthByToken(authorizationToken);
-    isUserSignedIn(userAuthEntity);
-    if (userAuthEntity.getLogoutAt() != null) {
+    isUserSignedIn(userSession);
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to post a question");
     }
 
-    questionEntity.setUserId(userAuthEntity.getUserId());
+    questionEntity.setUserId(userDao.getUserReference(userSession.getUserId()));
     return questionDao.createQuestion(questionEntity);
   }
 
+  /**
+   * Bulk Create Questions Business Service
+   * @param questionEntities   - accepts the QuestionEntity objects passed from QuestionController
+   * @param userSession        - accepts UserSession resolved from the requester's authorization code
+   * @description Validates once if the requester with the passed userSession has signed in
+   * and not signed out. Rejects the questions without content or with content longer than the
+   * CONTENT column, and inserts the others through the bulkInserter, in JDBC batches within
+   * transactions of a bounded size.
+   * @return BulkItemResult of every question, in the order of the questionEntities
+   * @throws AuthorizationFailedException if invalid/expired authorization code is used
+   * @throws BulkLimitExceededException if there are more questions than a bulk request can hold
+   */
+  public List<BulkItemResult> createQuestions(final List<QuestionEntity> questionEntities,
+      final UserSession userSession)
+      throws AuthorizationFailedException, BulkLimitExceededException {
+
+    // Login Validations
+    isUserSignedIn(userSession);
+    if (userSession.isSignedOut()) {
+      throw new AuthorizationFailedException("ATHR-002",
+          "User is signed out.Sign in first to post a question");
+    }
+    bulkInserter.checkItemCount(questionEntities.size());
+
+    // Content Validations
+    final UserEntity user = userDao.getUserReference(userSession.getUserId());
+    final BulkItemResult[] results = new BulkItemResult[questionEntities.size()];
+    final List<QuestionEntity> validQuestions = new ArrayList<>();
+    for (int i = 0; i < results.length; i++) {
+      final String contentError = validateContent(questionEntities.get(i).getContent());
+      if (contentError != null) {
+        results[i] = BulkItemResult.rejected("QUES-002", contentError);
+      } else {
+        questionEntities.get(i).setUserId(user);
+        validQuestions.add(questionEntities.get(i));
+      }
+    }
+
+    final Set<QuestionEntity> failedQuestions = bulkInserter.insert(validQuestions, chunk -> {
+      for (QuestionEntity questionEntity : chunk) {
+        // a retried question still has the id given to it by the rolled back transaction
+        questionEntity.setId(0);
+        questionDao.createQuestion(questionEntity);
+      }
+    });
+
+    for (int i = 0; i < results.length; i++) {
+      final QuestionEntity questionEntity = questionEntities.get(i);
+      if (results[i] == null) {
+        results[i] = failedQuestions.contains(questionEntity)
+            ? BulkItemResult.rejected(GenericErrorCode.GEN_001.getCode(),
+                GenericErrorCode.GEN_001.getDefaultMessage())
+            : BulkItemResult.created(questionEntity.getUuid());
+      }
+    }
+    return Arrays.asList(results);
+  }
+
   /**
    * Get All Questions Business Service
-   * @param authorizationToken - accepts String containing requester's authorization code
-   * @description Validates if the requester with the passed authorizationToken has signed in
-   * and not signed out. Calls the questionDao with the questionEntity as a parameter.
-   * @return List of type QuestionEntity
-   * @throws AuthorizationFailedException if invalid/expired authorizationToken is used
+   * @param userSession        - accepts UserSession resolved from the requester's authorization code
+   * @param cursor             - accepts the cursor returned with the previous page, null for the
+   *                           first page
+   * @param limit              - accepts the page size asked for, null for the default page size
+   * @description Validates if the requester with the passed userSession has signed in
+   * and not signed out. Calls the questionDao for one question more than the page size, which
+   * tells whether there is a next page.
+   * @return KeysetPage of type QuestionSummary, newest first
+   * @throws AuthorizationFailedException if invalid/expired authorization code is used
+   * @throws InvalidPageCursorException if the cursor cannot be decoded
    */
-  public List<QuestionEntity> getAllQuestions(final String authorizationToken)
-      throws AuthorizationFailedException {
+  public KeysetPage<QuestionSummary> getAllQuestions(final UserSession userSession,
+      final String cursor, final Integer limit)
+      throws AuthorizationFailedException, InvalidPageCursorException {
 
     // Login Validations
-    UserAuthEntity userAuthEntity = userDao.getUserAuthByToken(authorizationToken);
-    isUserSignedIn(userAuthEntity);
-    if (userAuthEntity.getLogoutAt() != null) {
+    isUserSignedIn(userSession);
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to get all questions");
     }
 
-    return questionDao.getAllQuestions();
+    final PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+    final int pageSize = KeysetPage.pageSize(limit);
+    return KeysetPage.of(questionDao.getQuestionsPage(after, pageSize + 1), pageSize,
+        question -> new PageCursor(question.getDateCreated(), question.getId()));
+  }
+
+  /**
+   * Stream All Questions Business Service
+   * @param userSession        - accepts UserSession resolved from the requester's authorization code
+   * @description Validates if the requester with the passed userSession has signed in
+   * and not signed out. The questions are read from the questionDao only when the returned stream
+   * is consumed, through a database cursor.
+   * @return RowStream of type QuestionSummary, newest first
+   * @throws AuthorizationFailedException if invalid/expired authorization code is used
+   * @throws ServiceUnavailableException if too many listings are already being streamed
+   */
+  public RowStream<QuestionSummary> streamAllQuestions(final UserSession userSession)
+      throws AuthorizationFailedException, ServiceUnavailableException {
+
+    // Login Validations
+    isUserSignedIn(userSession);
+    if (userSession.isSignedOut()) {
+      throw new AuthorizationFailedException("ATHR-002",
+          "User is signed out.Sign in first to get all questions");
+    }
+
+    return rowStreams.readOnly(
+        action -> questionDao.scrollAllQuestions(rowStreams.getFetchSize(), action));
   }
 
   /**
    * Edit Question Content Business Service
    * @param questionEntity     - accepts QuestionEntity object passed from QuestionController
-   * @param authorizationToken - accepts String containing requester's authorization code
-   * @description Validates if the requester with the passed authorizationToken has signed in
+   * @param userSession        - accepts UserSession resolved from the requester's authorization code
+   * @description Validates if the requester with the passed userSession has signed in
    * and not signed out. Validates the questionId and it's ownership with the requester's
    * userId. Prepares the questionEntity with other setter methods. Calls the questionDao with the
    * questionEntity as a parameter.
    * @return QuestionEntity object
-   * @throws AuthorizationFailedException if invalid/expired authorizationToken is used
+   * @throws AuthorizationFailedException if invalid/expired authorization code is used
    * @throws InvalidQuestionException if invalid Question ID is used
    */
   @Transactional(propagation = Propagation.REQUIRED)
   public QuestionEntity editQuestionContent(QuestionEntity questionEntity,
-      String authorizationToken)
+      UserSession userSession)
       throws AuthorizationFailedException, InvalidQuestionException {
 
     // Login Validations
-    UserAuthEntity userAuthEntity = userDao.getUserAuthByToken(authorizationToken);
-    isUserSignedIn(userAuthEntity);
-    if (userAuthEntity.getLogoutAt() != null) {
+    isUserSignedIn(userSession);
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to edit the question");
     }
@@ -99,7 +206,7 @@ public class QuestionBusinessService {
     // Question Validations
     QuestionEntity existingQuestion = questionDao.getQuestionById(questionEntity.getUuid());
     isValidQuestion(existingQuestion);
-    isValidOwner(userAuthEntity, existingQuestion);
+    isValidOwner(userSession, existingQuestion);
 
     questionEntity.setId(existingQuestion.getId());
     questionEntity.setDateCreated(existingQuestion.getDateCreated());
@@ -111,23 +218,22 @@ public class QuestionBusinessService {
   /**
    * Delete Question Business Service
    * @param uuid     - accepts String containing the UUID of the question to be deleted
-   * @param authorizationToken - accepts String containing requester's authorization code
-   * @description Validates if the requester with the passed authorizationToken has signed in
+   * @param userSession        - accepts UserSession resolved from the requester's authorization code
+   * @description Validates if the requester with the passed userSession has signed in
    * and not signed out. Validates the questionId and it's ownership with the requester's userId,
    * Or the role of the requester. Prepares the questionEntity with other setter methods.
    * Calls the questionDao with the questionEntity as a parameter.
    * @return QuestionEntity object
-   * @throws AuthorizationFailedException if invalid/expired authorizationToken is used
+   * @throws AuthorizationFailedException if invalid/expired authorization code is used
    * @throws InvalidQuestionException if invalid Question ID is used
    */
   @Transactional(propagation = Propagation.REQUIRED)
-  public String deleteQuestion(String uuid, String authorizationToken)
+  public String deleteQuestion(String uuid, UserSession userSession)
       throws AuthorizationFailedException, InvalidQuestionException {
 
     // Login Validations
-    UserAuthEntity userAuthEntity = userDao.getUserAuthByToken(authorizationToken);
-    isUserSignedIn(userAuthEntity);
-    if (userAuthEntity.getLogoutAt() != null) {
+    isUserSignedIn(userSession);
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to delete a question");
     }
@@ -135,7 +241,7 @@ public class QuestionBusinessService {
     // Question Validations
     QuestionEntity existingQuestion = questionDao.getQuestionById(uuid);
     isValidQuestion(existingQuestion);
-    isOwnerOrAdmin(userAuthEntity, existingQuestion);
+    isOwnerOrAdmin(userSession, existingQuestion);
 
     return questionDao.deleteQuestion(existingQuestion);
   }
@@ -143,21 +249,20 @@ public class QuestionBusinessService {
   /**
    * Get Question By Id Business Service
    * @param userId     - accepts String containing the userId of whose questions must be fetched
-   * @param authorizationToken - accepts String containing requester's authorization code
-   * @description Validates if the requester with the passed authorizationToken has signed in
+   * @param userSession        - accepts UserSession resolved from the requester's authorization code
+   * @description Validates if the requester with the passed userSession has signed in
    * and not signed out. Validates the userId. Calls the questionDao with the
    * userEntity as a parameter.
    * @return QuestionEntity object
-   * @throws AuthorizationFailedException if invalid/expired authorizationToken is used
+   * @throws AuthorizationFailedException if invalid/expired authorization code is used
    * @throws UserNotFoundException if invalid User ID is used
    */
-  public List<QuestionEntity> getAllQuestionsByUser(final String userId,
-      final String authorizationToken) throws AuthorizationFailedException, UserNotFoundException {
+  public List<QuestionSummary> getAllQuestionsByUser(final String userId,
+      final UserSession userSession) throws AuthorizationFailedException, UserNotFoundException {
 
     // Login Validations
-    UserAuthEntity userAuthEntity = userDao.getUserAuthByToken(authorizationToken);
-    isUserSignedIn(userAuthEntity);
-    if (userAuthEntity.getLogoutAt() != null) {
+    isUserSignedIn(userSession);
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to get all questions posted by a specific user");
     }
@@ -173,16 +278,30 @@ public class QuestionBusinessService {
   }
 
   /** Auxiliary Method: SignIn validation
-   * @param userAuthToken - accepts UserAuthEntity object from multiple methods in
+   * @param userSession - accepts UserSession object from multiple methods in
    *                      QuestionBusinessService Class
-   * @throws AuthorizationFailedException if userAuthToken is null
+   * @throws AuthorizationFailedException if userSession is null
    */
-  private void isUserSignedIn(UserAuthEntity userAuthToken) throws AuthorizationFailedException {
-    if (userAuthToken == null) {
+  private void isUserSignedIn(UserSession userSession) throws AuthorizationFailedException {
+    if (userSession == null) {
       throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
     }
   }
 
+  /** Auxiliary Method: Question content validation
+   * @param content - accepts the content of a question to be created
+   * @return the reason the content cannot be stored, or null if it can
+   */
+  private String validateContent(final String content) {
+    if (content == null || content.trim().isEmpty()) {
+      return "Question content is required";
+    }
+    if (content.length() > MAX_CONTENT_LENGTH) {
+      return "Question content can be at most " + MAX_CONTENT_LENGTH + " characters";
+    }
+    return null;
+  }
+
   /** Auxiliary Method: Question validation
    * @param existingQuestion - accepts QuestionEntity from multiple methods in
    *                         QuestionBusinessService Class
@@ -195,29 +314,29 @@ public class QuestionBusinessService {
   }
 
   /** Auxiliary Method: Question ownership validation
-   * @param userAuthEntity - accepts UserAuthEntity object
+   * @param userSession - accepts UserSession object
    * @param existingQuestion - accepts QuestionEntity object
    * @throws AuthorizationFailedException if userId of both the requester and
    * the question do not match.
    */
-  private void isValidOwner(UserAuthEntity userAuthEntity, QuestionEntity existingQuestion)
+  private void isValidOwner(UserSession userSession, QuestionEntity existingQuestion)
       throws AuthorizationFailedException {
-    if (!userAuthEntity.getUserId().equals(existingQuestion.getUserId())) {
+    if (userSession.getUserId() != existingQuestion.getUserId().getId()) {
       throw new AuthorizationFailedException("ATHR-003",
           "Only the question owner can edit the question");
     }
   }
 
   /** Auxiliary Method: Question ownership validation
-   * @param userAuthEntity - accepts UserAuthEntity object
+   * @param userSession - accepts UserSession object
    * @param existingQuestion - accepts QuestionEntity object
    * @throws AuthorizationFailedException if userId of both the requester and
    * the question do not match, AND if the requester is not the 'admin'
    */
-  private void isOwnerOrAdmin(UserAuthEntity userAuthEntity, QuestionEntity existingQuestion)
+  private void isOwnerOrAdmin(UserSession userSession, QuestionEntity existingQuestion)
       throws AuthorizationFailedException {
-    boolean isOwner = userAuthEntity.getUserId().equals(existingQuestion.getUserId());
-    boolean isAdmin = userAuthEntity.getUserId().getRole().equals("admin");
+    boolean isOwner = userSession.getUserId() == existingQuestion.getUserId().getId();
+    boolean isAdmin = userSession.isAdmin();
     if (!isOwner && !isAdmin) {
       throw new AuthorizationFailedException("ATHR-003",
           "Only the question owner or admin can delete the question");
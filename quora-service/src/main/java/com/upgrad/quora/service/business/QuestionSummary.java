@@ -0,0 +1,40 @@
+package com.upgrad.quora.service.business;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Read model of a listed question. Selected directly from the QUESTION columns by the listing
+ * queries, so listing neither loads the author of every question nor tracks the rows in the
+ * persistence context.
+ */
+public final class QuestionSummary {
+
+  private final long id;
+  private final String uuid;
+  private final String content;
+  private final ZonedDateTime dateCreated;
+
+  public QuestionSummary(final long id, final String uuid, final String content,
+      final ZonedDateTime dateCreated) {
+    this.id = id;
+    this.uuid = uuid;
+    this.content = content;
+    this.dateCreated = dateCreated;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getUuid() {
+    return uuid;
+  }
+
+  public String getContent() {
+    return content;
+  }
+
+  public ZonedDateTime getDateCreated() {
+    return dateCreated;
+  }
+}
@@ -0,0 +1,25 @@
+package com.upgrad.quora.service.business;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) uuids from UUID.randomUUID, as generated before the time-ordered generator
+ * was introduced. Every call goes through the JDK's shared SecureRandom.
+ */
+@Component
+public class RandomIdGenerator implements IdGenerator {
+
+  static final String ALGORITHM = "uuid-v4";
+
+  @Override
+  public String getAlgorithm() {
+    return ALGORITHM;
+  }
+
+  @Override
+  public UUID generate() {
+    return UUID.randomUUID();
+  }
+}
@@ -0,0 +1,135 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.RowStream;
+import com.upgrad.quora.service.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs streamed listings in their own read-only transaction.
+ *
+ * A streamed listing is read after the business method has returned, while the response is being
+ * written, so it cannot rely on the transaction of the request. The transaction is held open for
+ * as long as the client takes to read the listing, which keeps the database cursor and a pooled
+ * connection busy. So that slow clients cannot take up the connection pool, only a limited number
+ * of listings are streamed at a time, and each is abandoned once it has run for the timeout.
+ *
+ * A listing is admitted, and takes its place among the concurrent ones, while the request is still
+ * being handled, so that it can be rejected with a 503 before the response starts. Its place is
+ * given back once its rows have been read, or once the timeout has passed if they never are, as
+ * when the request times out or the client goes away before the response is written. The request
+ * times out after the same time, so a listing that has not been read by then never will be.
+ */
+@Component
+public class RowStreams {
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private final int fetchSize;
+
+  private final int timeoutSeconds;
+
+  private final Semaphore permits;
+
+  // listings admitted whose rows have not started being read yet
+  private final Set<Admission> unread = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param fetchSize - number of rows fetched from the database at a time
+   * @param maxConcurrent - number of listings streamed at a time
+   * @param timeoutSeconds - time a listing may hold its transaction open
+   */
+  public RowStreams(@Value("${quora.streaming.fetch-size:500}") final int fetchSize,
+      @Value("${quora.streaming.max-concurrent:4}") final int maxConcurrent,
+      @Value("${quora.streaming.timeout-seconds:300}") final int timeoutSeconds) {
+    this.fetchSize = fetchSize;
+    this.timeoutSeconds = timeoutSeconds;
+    this.permits = new Semaphore(maxConcurrent);
+  }
+
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  /**
+   * Takes one of the concurrent listings, which is given back once the returned rows have been
+   * read, or once timeoutSeconds have passed if they have not started being read by then. The
+   * rows can be read once, within timeoutSeconds.
+   *
+   * @param rows - rows to be read from the database
+   * @return the rows, read inside a read-only transaction that times out after timeoutSeconds
+   * @throws ServiceUnavailableException if maxConcurrent listings are already being streamed
+   */
+  public <T> RowStream<T> readOnly(final RowStream<T> rows) throws ServiceUnavailableException {
+    reclaimUnread();
+    if (!permits.tryAcquire()) {
+      throw new ServiceUnavailableException("SRV-002",
+          "Too many listings are being streamed, please try again later");
+    }
+    final Admission admission =
+        new Admission(System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds));
+    unread.add(admission);
+    return action -> {
+      // whoever removes the admission gives its place back, this listing or reclaimUnread
+      if (!unread.remove(admission)) {
+        throw new TransactionTimedOutException(
+            "Listing was not read within " + timeoutSeconds + " seconds");
+      }
+      try {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        // applied by Hibernate as the query timeout of the cursor
+        transactionTemplate.setTimeout(timeoutSeconds);
+        // the query timeout does not cover the time spent writing rows to a slow client
+        transactionTemplate.execute(status -> {
+          rows.forEach(row -> {
+            if (System.nanoTime() - admission.deadline > 0) {
+              throw new TransactionTimedOutException(
+                  "Listing was not read within " + timeoutSeconds + " seconds");
+            }
+            action.accept(row);
+          });
+          return null;
+        });
+      } finally {
+        permits.release();
+      }
+    };
+  }
+
+  /**
+   * Gives back the places of the listings whose rows have not started being read within
+   * timeoutSeconds, which are abandoned.
+   */
+  private void reclaimUnread() {
+    final long now = System.nanoTime();
+    for (Admission admission : unread) {
+      if (now - admission.deadline > 0 && unread.remove(admission)) {
+        permits.release();
+      }
+    }
+  }
+
+  private static final class Admission {
+
+    private final long deadline;
+
+    Admission(final long deadline) {
+      this.deadline = deadline;
+    }
+  }
+}
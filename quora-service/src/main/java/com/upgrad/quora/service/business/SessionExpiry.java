@@ -0,0 +1,51 @@
+package com.upgrad.quora.service.business;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * Expires cached sessions when their token expires, or after a maximum time if that comes first.
+ *
+ * Caffeine schedules entries with a per-entry expiry on a hierarchical timer wheel, so adding and
+ * expiring an entry take constant time, and expired entries are dropped during the cache's
+ * regular maintenance without a timer per entry or a scan over all entries.
+ */
+final class SessionExpiry implements Expiry<String, UserSession> {
+
+  private final long maximumNanos;
+
+  /**
+   * @param maximum - longest time an entry is kept, regardless of the expiry of its token
+   */
+  SessionExpiry(final Duration maximum) {
+    this.maximumNanos = maximum.toNanos();
+  }
+
+  @Override
+  public long expireAfterCreate(final String accessToken, final UserSession session,
+      final long currentTime) {
+    if (session.getExpiresAt() == null) {
+      return 0L;
+    }
+    Duration untilExpiry = Duration.between(ZonedDateTime.now(), session.getExpiresAt());
+    if (untilExpiry.isNegative()) {
+      return 0L;
+    }
+    return untilExpiry.compareTo(Duration.ofNanos(maximumNanos)) < 0
+        ? untilExpiry.toNanos() : maximumNanos;
+  }
+
+  @Override
+  public long expireAfterUpdate(final String accessToken, final UserSession session,
+      final long currentTime, final long currentDuration) {
+    return expireAfterCreate(accessToken, session, currentTime);
+  }
+
+  @Override
+  public long expireAfterRead(final String accessToken, final UserSession session,
+      final long currentTime, final long currentDuration) {
+    return currentDuration;
+  }
+}
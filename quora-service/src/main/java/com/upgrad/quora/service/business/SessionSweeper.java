@@ -0,0 +1,121 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.UserDao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Background job deleting ended sessions from USER_AUTH, so that the table and its indexes only
+ * hold sessions that can still be used.
+ *
+ * Sessions are deleted once they have been expired or signed out for longer than the retention
+ * period, which keeps recently signed out tokens around to be reported as signed out. In the
+ * stateless token mode signed out sessions are kept until they expire, since USER_AUTH is where
+ * other instances learn about the signout. Rows are deleted in small batches, each in its own
+ * transaction and with a pause in between, so that the sweep does not hold locks for long or
+ * compete with signins. The number of deleted rows and the batch latency are published as
+ * "quora.sessions.swept" and "quora.sessions.sweep.batch".
+ */
+@Component
+public class SessionSweeper implements MeterBinder {
+
+  @Autowired
+  private UserDao userDao;
+
+  @Autowired
+  private JwtKeyring jwtKeyring;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private final boolean enabled;
+  private final long retentionHours;
+  private final int batchSize;
+  private final long batchPauseMs;
+  private final int maxBatches;
+
+  private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+  private final Counter sweptSessions;
+  private final Timer batchTimer;
+
+  /**
+   * @param enabled        - whether ended sessions are deleted
+   * @param retentionHours - how long ended sessions are kept
+   * @param batchSize      - maximum number of rows deleted per transaction
+   * @param batchPauseMs   - pause between two batches
+   * @param maxBatches     - maximum number of batches per sweep
+   */
+  public SessionSweeper(@Value("${quora.session-sweeper.enabled:true}") final boolean enabled,
+      @Value("${quora.session-sweeper.retention-hours:24}") final long retentionHours,
+      @Value("${quora.session-sweeper.batch-size:500}") final int batchSize,
+      @Value("${quora.session-sweeper.batch-pause-ms:50}") final long batchPauseMs,
+      @Value("${quora.session-sweeper.max-batches:200}") final int maxBatches) {
+    this.enabled = enabled;
+    this.retentionHours = retentionHours;
+    this.batchSize = batchSize;
+    this.batchPauseMs = batchPauseMs;
+    this.maxBatches = maxBatches;
+    this.sweptSessions = Counter.builder("quora.sessions.swept")
+        .description("Ended sessions deleted from USER_AUTH").register(meters);
+    this.batchTimer = Timer.builder("quora.sessions.sweep.batch")
+        .description("Latency of one session sweeper batch").register(meters);
+  }
+
+  /**
+   * Deletes the sessions that ended before the retention period.
+   */
+  @Scheduled(initialDelayString = "${quora.session-sweeper.interval-ms:600000}",
+      fixedDelayString = "${quora.session-sweeper.interval-ms:600000}")
+  public void sweep() {
+    if (!enabled) {
+      return;
+    }
+
+    final ZonedDateTime cutoff = ZonedDateTime.now().minusHours(retentionHours);
+    int batches = sweep(() -> userDao.deleteExpiredUserAuths(cutoff, batchSize), 0);
+    if (!jwtKeyring.isStateless()) {
+      sweep(() -> userDao.deleteLoggedOutUserAuths(cutoff, batchSize), batches);
+    }
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    meters.add(registry);
+  }
+
+  /**
+   * Runs the batch until it deletes less than a full batch or the batch limit is reached.
+   *
+   * @return number of batches run so far in this sweep
+   */
+  private int sweep(final IntSupplier batch, int batches) {
+    while (batches < maxBatches) {
+      batches++;
+      final Integer deleted = batchTimer.record(() ->
+          transactionTemplate.execute(status -> batch.getAsInt()));
+      sweptSessions.increment(deleted);
+      if (deleted < batchSize) {
+        break;
+      }
+
+      try {
+        Thread.sleep(batchPauseMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return maxBatches;
+      }
+    }
+    return batches;
+  }
+}
@@ -0,0 +1,74 @@
+package com.upgrad.quora.service.business;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered (version 7) uuids: a 48 bit millisecond timestamp, followed by a 12 bit sequence
+ * and 62 random bits.
+ *
+ * Uuids made later sort after earlier ones, both as uuids and in their string form, so new rows
+ * are added at the right edge of the UUID indexes instead of splitting pages all over them. The
+ * random bits come from ThreadLocalRandom and the sequence is kept per thread, so generating an
+ * id never waits on another thread. The sequence starts at a random value in every millisecond
+ * and counts up, which keeps the uuids of one thread strictly increasing even when several are
+ * made in the same millisecond or the clock steps back.
+ *
+ * The uuids are identifiers, not secrets: ThreadLocalRandom is not a cryptographic source, and the
+ * creation time of every row can be read from its uuid.
+ */
+@Component
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+  static final String ALGORITHM = "uuid-v7";
+
+  private static final int SEQUENCE_BITS = 12;
+  private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+  private static final long VERSION = 7L << SEQUENCE_BITS;
+  private static final long VARIANT = 0x8000000000000000L;
+  private static final long RANDOM_MASK = 0x3fffffffffffffffL;
+
+  private final ThreadLocal<Sequence> sequences = ThreadLocal.withInitial(Sequence::new);
+
+  @Override
+  public String getAlgorithm() {
+    return ALGORITHM;
+  }
+
+  @Override
+  public UUID generate() {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final Sequence sequence = sequences.get();
+    sequence.advance(System.currentTimeMillis(), random);
+
+    final long mostSigBits = (sequence.millis << 16) | VERSION | sequence.value;
+    final long leastSigBits = VARIANT | (random.nextLong() & RANDOM_MASK);
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
+  /**
+   * Timestamp and sequence of the last uuid made by a thread.
+   */
+  private static final class Sequence {
+
+    private long millis;
+    private int value;
+
+    void advance(final long now, final ThreadLocalRandom random) {
+      if (now > millis) {
+        millis = now;
+        // Start in the lower half, so that thousands of ids fit in the millisecond
+        value = random.nextInt(MAX_SEQUENCE / 2 + 1);
+      } else if (value < MAX_SEQUENCE) {
+        value++;
+      } else {
+        // The sequence ran out, or the clock stepped back: borrow the next millisecond
+        millis++;
+        value = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.upgrad.quora.service.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.UserAuthEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Signed-out tokens, consulted by the stateless token mode in place of a USER_AUTH lookup.
+ *
+ * Signouts on this instance are added directly. Signouts on other instances are picked up by
+ * polling USER_AUTH for rows logged out since the previous poll. Entries are dropped once the
+ * token has expired, since an expired token is rejected by its signature check anyway.
+ */
+@Component
+public class TokenRevocationList {
+
+  @Autowired
+  private UserDao userDao;
+
+  @Autowired
+  private JwtKeyring jwtKeyring;
+
+  private final Cache<String, UserSession> revokedTokens = Caffeine.newBuilder()
+      .expireAfter(new SessionExpiry(Duration.ofNanos(Long.MAX_VALUE)))
+      .build();
+
+  private ZonedDateTime lastPolledAt =
+      ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault());
+
+  /**
+   * Marks the token as signed out.
+   *
+   * @param accessToken   - access token that was signed out
+   * @param revokedSession - session of the token, with its logout time set
+   */
+  public void revoke(final String accessToken, final UserSession revokedSession) {
+    revokedTokens.put(accessToken, revokedSession);
+  }
+
+  /**
+   * Applies the revocation list to a session resolved from a token.
+   *
+   * @param accessToken - access token the session was resolved from
+   * @param userSession - session resolved from the token, may be null
+   * @return the session with its logout time set if the token was signed out
+   */
+  public UserSession apply(final String accessToken, final UserSession userSession) {
+    UserSession revoked = revokedTokens.getIfPresent(accessToken);
+    if (userSession == null || revoked == null) {
+      return userSession;
+    }
+    return userSession.withLogoutAt(revoked.getLogoutAt());
+  }
+
+  /**
+   * Loads the tokens signed out since the previous poll.
+   */
+  @Scheduled(fixedDelayString = "${quora.jwt.revocation-poll-ms:5000}")
+  public void refresh() {
+    if (!jwtKeyring.isStateless()) {
+      return;
+    }
+
+    final ZonedDateTime now = ZonedDateTime.now();
+    for (UserAuthEntity userAuthEntity : userDao.getUserAuthsLoggedOutSince(lastPolledAt, now)) {
+      revoke(userAuthEntity.getAccessToken(), UserSession.of(userAuthEntity));
+    }
+    // Overlap the polling windows slightly so that signouts committed while polling are not missed
+    lastPolledAt = now.minusSeconds(1);
+  }
+}
@@ -10,7 +10,6 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
-import java.util.UUID;
 
 @Service
 public class UserBusinessService {
@@ -21,23 +20,34 @@ public class UserBusinessService {
   @Autowired
   private PasswordCryptographyProvider passwordCryptographyProvider;
 
+  @Autowired
+  private UserSessionCache userSessionCache;
+
+  @Autowired
+  private JwtKeyring jwtKeyring;
+
+  @Autowired
+  private TokenRevocationList tokenRevocationList;
+
+  @Autowired
+  private IdProvider idProvider;
+
   /**
-   * Check if the accessToken is present in DB or not.
+   * Check if the accessToken, resolved into the userSession, is present in DB and signed in.
+   * An expired token is treated as signed out.
    */
-  public UserAuthEntity getUserbyToken(final String accessToken)
+  public UserSession checkUserSession(final UserSession userSession)
       throws AuthorizationFailedException {
-    UserAuthEntity userAuthToken = userDao.getUserAuthByToken(accessToken);
-
-    if (userAuthToken == null) {
+    if (userSession == null) {
       throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
     }
 
-    if (userAuthToken.getLogoutAt() != null) {
+    if (userSession.isSignedOut()) {
       throw new AuthorizationFailedException("ATHR-002",
           "User is signed out.Sign in first to get user details");
     }
 
-    return userAuthToken;
+    return userSession;
   }
 
   /**
@@ -58,19 +68,31 @@ public class UserBusinessService {
 
   /** Get the userProfile
    * @param userUuid - uuid of the user
-   * @param accessToken - accessToken of the signed in user
+   * @param userSession - session of the signed in user
    * @exception AuthenticationFailedException
    * @exception UserNotFoundException
    * */
-  public UserEntity getUserProfile(final String userUuid, final String accessToken)
+  public UserEntity getUserProfile(final String userUuid, final UserSession userSession)
       throws AuthorizationFailedException, UserNotFoundException {
-    getUserbyToken(accessToken);
+    checkUserSession(userSession);
     UserEntity userById = getUserById(userUuid);
     return userById;
   }
 
+  /** Hashes the password of a new user, in place of the password given at signup. This is the
+   * CPU bound part of the signup, which runs on the PasswordHashingExecutor without touching the DB.
+   * @param userEntity - userEntity object, holding the password given at signup.
+   * @return userEntity - the same userEntity object, holding the salt and the hash of the password.
+   * */
+  public UserEntity hashPassword(final UserEntity userEntity) {
+    String[] encryptedText = passwordCryptographyProvider.encrypt(userEntity.getPassword());
+    userEntity.setSalt(encryptedText[0]);
+    userEntity.setPassword(encryptedText[1]);
+    return userEntity;
+  }
+
   /** User signup method
-   * @param userEntity - userEntity object.
+   * @param userEntity - userEntity object, whose password has been hashed with hashPassword().
    * @exception SignOutRestrictedException - If the entered username does not exists in the DB,then
    *                                         another valid user name needs to be entered.
    * @return signUpUser - returns signUpUser object,
@@ -87,53 +109,87 @@ public class UserBusinessService {
           "This user has already been registered, try with any other emailId");
     }
 
-    String[] encryptedText = passwordCryptographyProvider.encrypt(userEntity.getPassword());
-    userEntity.setSalt(encryptedText[0]);
-    userEntity.setPassword(encryptedText[1]);
-
     UserEntity signUpUser = userDao.createUser(userEntity);
 
     return signUpUser;
   }
 
-  /** User sign-in process
+  /** Looks up the user signing in, before the password is checked.
    * @param username - username of the user trying to signin is passed to this method.
+   * @exception AuthenticationFailedException - If the username does not exist in the DB.
+   * @return userEntity - the user, to be passed to verifyPassword() and signin().
+   * */
+  public UserEntity getSigninUser(final String username) throws AuthenticationFailedException {
+    UserEntity userEntity = userDao.getUserByUsername(username);
+    if (userEntity == null) {
+      throw new AuthenticationFailedException("ATH-001", "This username does not exist");
+    }
+    return userEntity;
+  }
+
+  /** Checks the password of the user signing in. This is the CPU bound part of the signin, which
+   * runs on the PasswordHashingExecutor without touching the DB.
+   * @param userEntity - user returned by getSigninUser().
    * @param password - password of the user trying to signin is passed to this method.
    * @exception AuthenticationFailedException - If the username and password's hash doesnt match
    *                                            doesnt match with the one stored in the DB then the
    *                                            following exception would be thrown.
+   * @return the new salt and hash of the password, if the stored hash was made with an older
+   *         algorithm or cost and is to be replaced by signin(), or null.
+   * */
+  public String[] verifyPassword(final UserEntity userEntity, final String password)
+      throws AuthenticationFailedException {
+    if (!passwordCryptographyProvider.matches(password, userEntity.getSalt(),
+        userEntity.getPassword())) {
+      throw new AuthenticationFailedException("ATH-002", "Password failed");
+    }
+    /** Hashes made with an older algorithm or cost are replaced now that the password is known */
+    if (passwordCryptographyProvider.needsRehash(userEntity.getSalt(), userEntity.getPassword())) {
+      return passwordCryptographyProvider.encrypt(password);
+    }
+    return null;
+  }
+
+  /** User sign-in process, once the password has been checked by verifyPassword().
+   * @param userEntity - user returned by getSigninUser().
+   * @param rehash - salt and hash returned by verifyPassword(), or null.
+   * @exception AuthenticationFailedException - If the user has been deleted in the meantime.
    * @return userAuthEntity - userAuthEntity object is returned from this method.
    * */
   @Transactional(propagation = Propagation.REQUIRED)
-  public UserAuthEntity signin(final String username, final String password)
+  public UserAuthEntity signin(final UserEntity userEntity, final String[] rehash)
       throws AuthenticationFailedException {
-    UserEntity userEntity = userDao.getUserByUsername(username);
-    if (userEntity == null) {
+    /** The user was looked up outside of this transaction, so it is read again to be updated */
+    UserEntity signinUser = userDao.getUserById(userEntity.getUuid());
+    if (signinUser == null) {
       throw new AuthenticationFailedException("ATH-001", "This username does not exist");
     }
-
-    final String encryptedPassword = PasswordCryptographyProvider
-        .encrypt(password, userEntity.getSalt());
-    if (encryptedPassword.equals(userEntity.getPassword())) {
-      JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(encryptedPassword);
-      UserAuthEntity userAuthEntity = new UserAuthEntity();
-
-      final ZonedDateTime now = ZonedDateTime.now();
-      final ZonedDateTime expiresAt = now.plusHours(8);
-
-      userAuthEntity.setUuid(UUID.randomUUID().toString());
-      userAuthEntity.setUserId(userEntity);
-      userAuthEntity
-          .setAccessToken(jwtTokenProvider.generateToken(userEntity.getUuid(), now, expiresAt));
-      userAuthEntity.setExpiresAt(expiresAt);
-      userAuthEntity.setLoginAt(now);
-      userDao.createAuthToken(userAuthEntity);
-
-      return userAuthEntity;
-    } else {
-      throw new AuthenticationFailedException("ATH-002", "Password failed");
+    if (rehash != null) {
+      signinUser.setSalt(rehash[0]);
+      signinUser.setPassword(rehash[1]);
     }
 
+    UserAuthEntity userAuthEntity = new UserAuthEntity();
+
+    final ZonedDateTime now = ZonedDateTime.now();
+    final ZonedDateTime expiresAt = now.plusHours(8);
+
+    /** In the stateless token mode, the token is signed with a server-held key instead */
+    final String accessToken = jwtKeyring.isStateless()
+        ? jwtKeyring.generateToken(signinUser, now, expiresAt)
+        : new JwtTokenProvider(signinUser.getPassword())
+            .generateToken(signinUser.getUuid(), now, expiresAt);
+
+    userAuthEntity.setUuid(idProvider.nextId());
+    userAuthEntity.setUserId(signinUser);
+    userAuthEntity.setAccessToken(accessToken);
+    userAuthEntity.setExpiresAt(expiresAt);
+    userAuthEntity.setLoginAt(now);
+    userDao.createAuthToken(userAuthEntity);
+    /** The new token may have been presented, and remembered as unknown, before it existed */
+    userSessionCache.invalidate(accessToken);
+
+    return userAuthEntity;
   }
 
   /** User sign-out method
@@ -147,13 +203,17 @@ public class UserBusinessService {
   @Transactional(propagation = Propagation.REQUIRED)
   public String signout(final String accessToken) throws SignOutRestrictedException {
     ZonedDateTime currentTime = ZonedDateTime.now();
-    UserAuthEntity userAuthEntity = userDao.getUserAuthByToken(accessToken);
+    UserSession userSession = userSessionCache.getSession(accessToken);
 
-    if (userAuthEntity == null) {
+    if (userSession == null || userSession.isExpired()) {
       throw new SignOutRestrictedException("SGR-001", "User is not Signed in");
     }
 
     userDao.updateUserLogoutByToken(accessToken, currentTime);
-    return userAuthEntity.getUserId().getUuid();
+    userSessionCache.invalidate(accessToken);
+    if (jwtKeyring.isStateless()) {
+      tokenRevocationList.revoke(accessToken, userSession.withLogoutAt(currentTime));
+    }
+    return userSession.getUserUuid();
   }
 }
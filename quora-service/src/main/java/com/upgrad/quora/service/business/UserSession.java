@@ -0,0 +1,85 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.entity.UserAuthEntity;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Immutable view of a resolved access token. Holds only the parts of the USER_AUTH row and its
+ * user that the authorization checks need, so it can be cached and shared across requests.
+ */
+public final class UserSession {
+
+  private final long userId;
+  private final String userUuid;
+  private final String role;
+  private final ZonedDateTime expiresAt;
+  private final ZonedDateTime logoutAt;
+
+  public UserSession(final long userId, final String userUuid, final String role,
+      final ZonedDateTime expiresAt, final ZonedDateTime logoutAt) {
+    this.userId = userId;
+    this.userUuid = userUuid;
+    this.role = role;
+    this.expiresAt = expiresAt;
+    this.logoutAt = logoutAt;
+  }
+
+  /**
+   * Builds the session view from a loaded UserAuthEntity.
+   *
+   * @param userAuthEntity - the USER_AUTH row matching the access token
+   * @return UserSession holding the user id, uuid, role, expiry and logout time
+   */
+  public static UserSession of(final UserAuthEntity userAuthEntity) {
+    return new UserSession(userAuthEntity.getUserId().getId(),
+        userAuthEntity.getUserId().getUuid(), userAuthEntity.getUserId().getRole(),
+        userAuthEntity.getExpiresAt(), userAuthEntity.getLogoutAt());
+  }
+
+  public long getUserId() {
+    return userId;
+  }
+
+  public String getUserUuid() {
+    return userUuid;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  public ZonedDateTime getExpiresAt() {
+    return expiresAt;
+  }
+
+  public ZonedDateTime getLogoutAt() {
+    return logoutAt;
+  }
+
+  /**
+   * @param logoutAt - time at which the token was signed out
+   * @return a copy of this session marked as signed out
+   */
+  public UserSession withLogoutAt(final ZonedDateTime logoutAt) {
+    return new UserSession(userId, userUuid, role, expiresAt, logoutAt);
+  }
+
+  /**
+   * @return true if the token was signed out or has expired
+   */
+  public boolean isSignedOut() {
+    return logoutAt != null || isExpired();
+  }
+
+  /**
+   * @return true if the token is past its expiry time
+   */
+  public boolean isExpired() {
+    return expiresAt == null || !expiresAt.isAfter(ZonedDateTime.now());
+  }
+
+  public boolean isAdmin() {
+    return "admin".equals(role);
+  }
+}
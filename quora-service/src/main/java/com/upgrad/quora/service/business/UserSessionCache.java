@@ -0,0 +1,172 @@
+package com.upgrad.quora.service.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.upgrad.quora.service.common.AccessTokenDigest;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.UserEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache of resolved access tokens, sitting in front of
+ * UserDao.getUserSessionByToken so that authenticated requests do not query USER_AUTH every time.
+ *
+ * Entries are evicted by size, and after a fixed time-to-live which bounds how stale a session
+ * can get on instances that did not see the signout. An entry whose token expires sooner is
+ * evicted when the token expires. Signout and user deletion invalidate entries synchronously.
+ *
+ * Tokens that do not resolve to a session are remembered for a few seconds in a separate bounded
+ * cache, keyed by the token digest, so that a client repeating an unknown token is rejected
+ * without querying USER_AUTH again. Hit, miss and eviction counts are published under the
+ * "userSessions" and "unknownTokens" cache names.
+ */
+@Component
+public class UserSessionCache implements MeterBinder {
+
+  private static final String CACHE_NAME = "userSessions";
+
+  private static final String UNKNOWN_TOKENS_CACHE_NAME = "unknownTokens";
+
+  @Autowired
+  private UserDao userDao;
+
+  @Autowired
+  private JwtKeyring jwtKeyring;
+
+  @Autowired
+  private TokenRevocationList tokenRevocationList;
+
+  private final Cache<String, UserSession> sessions;
+
+  private final Cache<ByteBuffer, Boolean> unknownTokens;
+
+  public UserSessionCache(
+      @Value("${quora.session-cache.maximum-size:10000}") final long maximumSize,
+      @Value("${quora.session-cache.ttl-seconds:60}") final long ttlSeconds,
+      @Value("${quora.session-cache.unknown-maximum-size:100000}") final long unknownMaximumSize,
+      @Value("${quora.session-cache.unknown-ttl-seconds:5}") final long unknownTtlSeconds) {
+    this.sessions = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new SessionExpiry(Duration.ofSeconds(ttlSeconds)))
+        .recordStats()
+        .build();
+    this.unknownTokens = Caffeine.newBuilder()
+        .maximumSize(unknownMaximumSize)
+        .expireAfterWrite(unknownTtlSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Resolves the access token, loading it from USER_AUTH on a cache miss. In the stateless token
+   * mode the token is verified locally instead, and checked against the revocation list on every
+   * call so that signouts take effect before the cached entry expires. Its user is still looked up
+   * on a cache miss, so that the tokens of a deleted user stop resolving, and a role change takes
+   * effect, within the time-to-live of the cache on every instance.
+   *
+   * @param accessToken - access token sent in the authorization header
+   * @return UserSession of the token, or null if the token does not exist in the DB
+   */
+  public UserSession getSession(final String accessToken) {
+    if (jwtKeyring.isStateless()) {
+      return tokenRevocationList.apply(accessToken, sessions.get(accessToken, this::verifyToken));
+    }
+    return sessions.get(accessToken, this::loadSession);
+  }
+
+  /**
+   * Drops the cached session of the access token. The entry is dropped again once the current
+   * transaction commits, so that a concurrent request cannot re-cache the pre-commit state.
+   *
+   * @param accessToken - access token whose session has changed
+   */
+  public void invalidate(final String accessToken) {
+    final ByteBuffer digest = ByteBuffer.wrap(AccessTokenDigest.digest(accessToken));
+    sessions.invalidate(accessToken);
+    unknownTokens.invalidate(digest);
+    afterCommit(() -> {
+      sessions.invalidate(accessToken);
+      unknownTokens.invalidate(digest);
+    });
+  }
+
+  /**
+   * Drops every cached session belonging to the user, e.g. when the user is deleted.
+   *
+   * @param userUuid - uuid of the user whose sessions have to be dropped
+   */
+  public void invalidateUser(final String userUuid) {
+    removeUserSessions(userUuid);
+    afterCommit(() -> removeUserSessions(userUuid));
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, sessions, CACHE_NAME);
+    CaffeineCacheMetrics.monitor(registry, unknownTokens, UNKNOWN_TOKENS_CACHE_NAME);
+  }
+
+  private UserSession loadSession(final String accessToken) {
+    return resolveUnlessUnknown(accessToken, userDao::getUserSessionByToken);
+  }
+
+  private UserSession verifyToken(final String accessToken) {
+    return resolveUnlessUnknown(accessToken, token -> {
+      final UserSession claimed = jwtKeyring.verify(token);
+      if (claimed == null) {
+        return null;
+      }
+      final UserEntity userEntity = userDao.getUserById(claimed.getUserUuid());
+      if (userEntity == null || userEntity.getId() != claimed.getUserId()) {
+        return null;
+      }
+      return new UserSession(userEntity.getId(), userEntity.getUuid(), userEntity.getRole(),
+          claimed.getExpiresAt(), claimed.getLogoutAt());
+    });
+  }
+
+  /**
+   * Resolves a token missing from the session cache, unless it was recently found to be unknown.
+   */
+  private UserSession resolveUnlessUnknown(final String accessToken,
+      final Function<String, UserSession> resolver) {
+    final ByteBuffer digest = ByteBuffer.wrap(AccessTokenDigest.digest(accessToken));
+    if (unknownTokens.getIfPresent(digest) != null) {
+      return null;
+    }
+
+    final UserSession userSession = resolver.apply(accessToken);
+    if (userSession == null) {
+      unknownTokens.put(digest, Boolean.TRUE);
+    }
+    return userSession;
+  }
+
+  private void removeUserSessions(final String userUuid) {
+    sessions.asMap().values().removeIf(session -> session.getUserUuid().equals(userUuid));
+  }
+
+  private void afterCommit(final Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.upgrad.quora.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fixed-length SHA-256 digest of an access token, used as the USER_AUTH lookup key.
+ *
+ * Access tokens are several hundred characters long, so indexing them directly makes for a wide
+ * B-tree. The 32 byte digest keeps the index narrow and is computed the same way as the SQL
+ * expression sha256(convert_to(ACCESS_TOKEN, 'UTF8')) used to backfill existing rows.
+ */
+public final class AccessTokenDigest {
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  private AccessTokenDigest() {
+  }
+
+  /**
+   * @param accessToken - access token to be digested
+   * @return 32 byte SHA-256 digest of the UTF-8 encoded token
+   */
+  public static byte[] digest(final String accessToken) {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM)
+          .digest(accessToken.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+    }
+  }
+}
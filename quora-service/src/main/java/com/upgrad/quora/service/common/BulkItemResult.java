@@ -0,0 +1,51 @@
+package com.upgrad.quora.service.common;
+
+/**
+ * Outcome of one item of a bulk request: the uuid of the row it created, or the code and message
+ * of the error that kept it from being created.
+ */
+public final class BulkItemResult {
+
+  private final String uuid;
+  private final String code;
+  private final String errorMessage;
+
+  private BulkItemResult(final String uuid, final String code, final String errorMessage) {
+    this.uuid = uuid;
+    this.code = code;
+    this.errorMessage = errorMessage;
+  }
+
+  /**
+   * @param uuid - uuid of the created row
+   * @return result of an item that was created
+   */
+  public static BulkItemResult created(final String uuid) {
+    return new BulkItemResult(uuid, null, null);
+  }
+
+  /**
+   * @param code         - error code
+   * @param errorMessage - error message
+   * @return result of an item that was not created
+   */
+  public static BulkItemResult rejected(final String code, final String errorMessage) {
+    return new BulkItemResult(null, code, errorMessage);
+  }
+
+  public boolean isCreated() {
+    return uuid != null;
+  }
+
+  public String getUuid() {
+    return uuid;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+}
@@ -0,0 +1,69 @@
+package com.upgrad.quora.service.common;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a listing, with the cursor of the next page if there is one.
+ *
+ * @param <T> - type of the listed rows
+ */
+public final class KeysetPage<T> {
+
+  /** Page size used when the client does not ask for one */
+  public static final int DEFAULT_PAGE_SIZE = 50;
+
+  /** Largest page size a client can ask for */
+  public static final int MAX_PAGE_SIZE = 100;
+
+  private final List<T> items;
+
+  private final PageCursor nextCursor;
+
+  private KeysetPage(final List<T> items, final PageCursor nextCursor) {
+    this.items = items;
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Builds the page from a query that fetched one row more than the page size, the extra row
+   * telling whether there is a next page.
+   *
+   * @param rows     - up to pageSize + 1 rows in listing order
+   * @param pageSize - number of rows in a page
+   * @param cursorOf - cursor positioned at a row
+   * @return the page holding at most pageSize rows
+   */
+  public static <T> KeysetPage<T> of(final List<T> rows, final int pageSize,
+      final Function<T, PageCursor> cursorOf) {
+    if (rows.size() <= pageSize) {
+      return new KeysetPage<>(Collections.unmodifiableList(rows), null);
+    }
+    List<T> items = rows.subList(0, pageSize);
+    return new KeysetPage<>(Collections.unmodifiableList(items),
+        cursorOf.apply(items.get(pageSize - 1)));
+  }
+
+  /**
+   * @param limit - page size asked for by the client, may be null
+   * @return the page size to use, between 1 and MAX_PAGE_SIZE
+   */
+  public static int pageSize(final Integer limit) {
+    if (limit == null) {
+      return DEFAULT_PAGE_SIZE;
+    }
+    return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  /**
+   * @return cursor of the next page, or null if this is the last page
+   */
+  public PageCursor getNextCursor() {
+    return nextCursor;
+  }
+}
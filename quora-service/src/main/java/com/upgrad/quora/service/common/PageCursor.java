@@ -0,0 +1,81 @@
+package com.upgrad.quora.service.common;
+
+import com.upgrad.quora.service.exception.InvalidPageCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by date and id, newest first. The next page starts after the row
+ * with this date and id, so it is found through the (date, id) index however deep the page is.
+ *
+ * Clients receive the cursor as an opaque URL-safe token and pass it back unchanged.
+ */
+public final class PageCursor {
+
+  private static final String SEPARATOR = ",";
+
+  private final ZonedDateTime date;
+
+  private final long id;
+
+  public PageCursor(final ZonedDateTime date, final long id) {
+    this.date = date;
+    this.id = id;
+  }
+
+  /**
+   * @param token - token returned by encode()
+   * @return the decoded cursor
+   * @throws InvalidPageCursorException - if the token was not produced by encode()
+   */
+  public static PageCursor decode(final String token) throws InvalidPageCursorException {
+    return decode(token, Long.MAX_VALUE);
+  }
+
+  /**
+   * @param token - token returned by encode()
+   * @param maxId - largest id the listing can hold, as bounded by the type of its id column
+   * @return the decoded cursor
+   * @throws InvalidPageCursorException - if the token was not produced by encode(), or its id is
+   *                                    negative or larger than maxId
+   */
+  public static PageCursor decode(final String token, final long maxId)
+      throws InvalidPageCursorException {
+    try {
+      String[] dateAndId = new String(Base64.getUrlDecoder().decode(token),
+          StandardCharsets.UTF_8).split(SEPARATOR, 2);
+      if (dateAndId.length != 2) {
+        throw new IllegalArgumentException();
+      }
+      final long id = Long.parseLong(dateAndId[1]);
+      if (id < 0 || id > maxId) {
+        throw new IllegalArgumentException();
+      }
+      return new PageCursor(
+          ZonedDateTime.ofInstant(Instant.parse(dateAndId[0]), ZoneId.systemDefault()), id);
+    } catch (IllegalArgumentException | DateTimeException e) {
+      throw new InvalidPageCursorException("PAG-001", "The page cursor is not valid");
+    }
+  }
+
+  /**
+   * @return opaque token for this cursor
+   */
+  public String encode() {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(
+        (date.toInstant().toString() + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  public ZonedDateTime getDate() {
+    return date;
+  }
+
+  public long getId() {
+    return id;
+  }
+}
@@ -0,0 +1,21 @@
+package com.upgrad.quora.service.common;
+
+import java.util.function.Consumer;
+
+/**
+ * Rows of a listing read one at a time from a database cursor, so that they can be written out
+ * without holding the whole listing in memory.
+ *
+ * @param <T> - type of the listed rows
+ */
+@FunctionalInterface
+public interface RowStream<T> {
+
+  /**
+   * Reads the rows in listing order, handing each one to the action before the next one is read.
+   * Rows are detached from the persistence context in batches, so the action must not keep them.
+   *
+   * @param action - action applied to every row
+   */
+  void forEach(Consumer<? super T> action);
+}
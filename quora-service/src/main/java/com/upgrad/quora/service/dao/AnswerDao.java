@@ -1,13 +1,18 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.business.AnswerSummary;
+import com.upgrad.quora.service.common.PageCursor;
 import com.upgrad.quora.service.entity.AnswerEntity;
 import com.upgrad.quora.service.entity.QuestionEntity;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class AnswerDao {
@@ -67,20 +72,41 @@ public class AnswerDao {
     }
   }
 
-  /** Get all answers to a question
+  /** Get a page of the answers to a question, newest first
    * @param question - accepts QuestionEntity object
+   * @param after - accepts the cursor of the last answer of the previous page, null for the first
+   * page
+   * @param maxResults - accepts the maximum number of answers fetched
    *
-   * Fetches all the answers for the provided QuestionEntity from the DB
+   * Fetches the answers of the provided QuestionEntity following the cursor in (date, id) order,
+   * seeking through the (question_id, date, id) index instead of skipping the previous pages
    *
-   * @return List of AnswerEntity objects
+   * @return List of AnswerSummary objects
    */
+  public List<AnswerSummary> getAnswersPageByQuestion(final QuestionEntity question,
+      final PageCursor after, final int maxResults) {
+    TypedQuery<AnswerSummary> query = after == null
+        ? entityManager.createNamedQuery("getAnswersByQuestionFirstPage", AnswerSummary.class)
+        : entityManager.createNamedQuery("getAnswersByQuestionPageAfter", AnswerSummary.class)
+            .setParameter("date", after.getDate())
+            // Answer ids are ints; the cursor was decoded within their range
+            .setParameter("id", (int) after.getId());
+    return query.setParameter("question", question).setMaxResults(maxResults).getResultList();
+  }
 
-  public List<AnswerEntity> getAllAnswersByQuestion(QuestionEntity question) {
-    try {
-      return entityManager.createNamedQuery("getAnswersByQuestion", AnswerEntity.class)
-          .setParameter("question", question).getResultList();
-    } catch (NoResultException nre) {
-      return null;
-    }
+  /** Stream all answers to a question, newest first
+   * @param question - accepts QuestionEntity object
+   * @param fetchSize - accepts the number of answers fetched from the database at a time
+   * @param action - accepts the action applied to every answer
+   *
+   * Reads the answers of the provided QuestionEntity through a database cursor, to be called
+   * inside a transaction
+   */
+  public void scrollAnswersByQuestion(final QuestionEntity question, final int fetchSize,
+      final Consumer<? super AnswerSummary> action) {
+    final Session session = entityManager.unwrap(Session.class);
+    QueryScroller.forEach(session,
+        session.createNamedQuery("getAnswersByQuestionFirstPage", AnswerSummary.class)
+            .setParameter("question", question), fetchSize, action);
   }
 }
@@ -0,0 +1,42 @@
+package com.upgrad.quora.service.dao;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import java.util.function.Consumer;
+
+/**
+ * Reads the results of a query through a forward-only database cursor instead of loading them into
+ * a list. The PostgreSQL driver only fetches fetchSize rows at a time when it runs inside a
+ * transaction, so callers must hold one open while scrolling.
+ */
+final class QueryScroller {
+
+  private QueryScroller() {
+  }
+
+  /**
+   * @param session   - session the query was created in
+   * @param query     - query whose results are read
+   * @param fetchSize - number of rows fetched from the database at a time
+   * @param action    - action applied to every row
+   */
+  static <T> void forEach(final Session session, final Query<T> query, final int fetchSize,
+      final Consumer<? super T> action) {
+    try (ScrollableResults rows = query.setFetchSize(fetchSize).setReadOnly(true)
+        .scroll(ScrollMode.FORWARD_ONLY)) {
+      int count = 0;
+      while (rows.next()) {
+        @SuppressWarnings("unchecked")
+        T row = (T) rows.get(0);
+        action.accept(row);
+        // Detach the rows already written so that the persistence context does not grow
+        if (++count % fetchSize == 0) {
+          session.clear();
+        }
+      }
+    }
+  }
+}
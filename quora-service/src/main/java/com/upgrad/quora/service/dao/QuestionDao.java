@@ -1,13 +1,20 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.business.QuestionSummary;
+import com.upgrad.quora.service.common.PageCursor;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserEntity;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class QuestionDao {
@@ -25,17 +32,33 @@ public class QuestionDao {
     return questionEntity;
   }
 
-  /** Get all questions
-   * @description fetches all questions from the database
-   * @return List object of type QuestionEntity
+  /** Get a page of questions, newest first
+   * @param after - accepts the cursor of the last question of the previous page, null for the first
+   * page
+   * @param maxResults - accepts the maximum number of questions fetched
+   * @description fetches the questions following the cursor in (date, id) order, seeking through
+   * the (date, id) index instead of skipping the previous pages
+   * @return List object of type QuestionSummary
    */
-  public List<QuestionEntity> getAllQuestions() {
-    try {
-      return entityManager.createNamedQuery("getAllQuestions", QuestionEntity.class)
-          .getResultList();
-    } catch (NoResultException nre) {
-      return null;
-    }
+  public List<QuestionSummary> getQuestionsPage(final PageCursor after, final int maxResults) {
+    TypedQuery<QuestionSummary> query = after == null
+        ? entityManager.createNamedQuery("getQuestionsFirstPage", QuestionSummary.class)
+        : entityManager.createNamedQuery("getQuestionsPageAfter", QuestionSummary.class)
+            .setParameter("date", after.getDate())
+            .setParameter("id", after.getId());
+    return query.setMaxResults(maxResults).getResultList();
+  }
+
+  /** Stream all questions, newest first
+   * @param fetchSize - accepts the number of questions fetched from the database at a time
+   * @param action - accepts the action applied to every question
+   * @description reads the questions through a database cursor, to be called inside a transaction
+   */
+  public void scrollAllQuestions(final int fetchSize,
+      final Consumer<? super QuestionSummary> action) {
+    final Session session = entityManager.unwrap(Session.class);
+    QueryScroller.forEach(session,
+        session.createNamedQuery("getQuestionsFirstPage", QuestionSummary.class), fetchSize, action);
   }
 
   /** Update/edit a question
@@ -61,6 +84,21 @@ public class QuestionDao {
     }
   }
 
+  /** Get questions by Ids
+   * @param uuids - accepts the question UUIDs
+   * @description fetches the QuestionEntity objects with any of the provided UUIDs from the
+   * database in a single query
+   * @return List object of type QuestionEntity, without the UUIDs that do not exist
+   */
+  public List<QuestionEntity> getQuestionsByIds(final Collection<String> uuids) {
+    if (uuids.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return entityManager.createNamedQuery("getQuestionsByUuids", QuestionEntity.class)
+        .setParameter("uuids", uuids).getResultList();
+  }
+
+
   /** Delete a question by Id
    * @param existingQuestion - accepts QuestionEntity object
    * @description Deleted a question as per the provided QuestionEntity
@@ -74,11 +112,11 @@ public class QuestionDao {
   /** Get questions by User
    * @param userEntity - accepts UserEntity object
    * @description Fetches all the questions from the DB that were created by the provided UserEntity
-   * @return List object of type QuestionEntity
+   * @return List object of type QuestionSummary
    */
-  public List<QuestionEntity> getAllQuestionsByUser(UserEntity userEntity) {
+  public List<QuestionSummary> getAllQuestionsByUser(UserEntity userEntity) {
     try {
-      return entityManager.createNamedQuery("QuestionByUserId", QuestionEntity.class)
+      return entityManager.createNamedQuery("QuestionByUserId", QuestionSummary.class)
           .setParameter("user", userEntity).getResultList();
     } catch (NoResultException nre) {
       return null;
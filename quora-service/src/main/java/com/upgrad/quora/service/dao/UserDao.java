@@ -1,5 +1,7 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.business.UserSession;
+import com.upgrad.quora.service.common.AccessTokenDigest;
 import com.upgrad.quora.service.entity.UserAuthEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import org.springframework.stereotype.Repository;
@@ -8,10 +10,14 @@ import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import java.time.ZonedDateTime;
+import java.util.List;
 
 @Repository
 public class UserDao {
 
+  /** JPA hint applying an entity graph as the fetch plan of a query */
+  private static final String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+
   @PersistenceContext
   private EntityManager entityManager;
 
@@ -103,6 +109,15 @@ public class UserDao {
     }
   }
 
+  /** Fetch a reference to the user by its primary key, without loading the USERS row.
+   *
+   * @param id - primary key of the user is passed in this method.
+   *
+   * */
+  public UserEntity getUserReference(final long id) {
+    return entityManager.getReference(UserEntity.class, id);
+  }
+
   /** Creates an Auth token in the user_auth DB.
    *
    * @param userAuthEntity - userAuthEntity object value is passed in this method.
@@ -114,20 +129,18 @@ public class UserDao {
     return userAuthEntity;
   }
 
-  /** Creates an Auth token in the user_auth DB.
+  /** Fetch the session of an Auth token, selecting only the columns needed for authorization
+   * instead of the full user_auth and users rows.
    *
    * @param accessToken - accessToken value is passed in this method.
-   * @return authEntity
+   * @return userSession - or null if the token does not exist in the DB
    *
    * */
-  public UserAuthEntity getUserAuthByToken(final String accessToken) {
+  public UserSession getUserSessionByToken(final String accessToken) {
     try {
-      UserAuthEntity authEntity = entityManager
-          .createNamedQuery("userAuthByToken", UserAuthEntity.class)
-          .setParameter("token", accessToken)
+      return entityManager.createNamedQuery("userSessionByToken", UserSession.class)
+          .setParameter("digest", AccessTokenDigest.digest(accessToken))
           .getSingleResult();
-
-      return authEntity;
     } catch (NoResultException nre) {
       return null;
     }
@@ -141,8 +154,52 @@ public class UserDao {
    * */
   public void updateUserLogoutByToken(final String accessToken, final ZonedDateTime logoutAt) {
     entityManager.createNamedQuery("updateLogoutByToken")
-        .setParameter("token", accessToken)
+        .setParameter("digest", AccessTokenDigest.digest(accessToken))
         .setParameter("logoutAt", logoutAt)
         .executeUpdate();
   }
+
+  /** Fetch the unexpired Auth tokens that were signed out since the given time.
+   *
+   * @param since - only tokens signed out at or after this time are returned
+   * @param now - current time, tokens expired before it are skipped
+   * @return list of signed out userAuthEntity objects, with their users loaded
+   *
+   * */
+  public List<UserAuthEntity> getUserAuthsLoggedOutSince(final ZonedDateTime since,
+      final ZonedDateTime now) {
+    return entityManager.createNamedQuery("userAuthLoggedOutSince", UserAuthEntity.class)
+        .setHint(FETCH_GRAPH_HINT, entityManager.getEntityGraph(UserAuthEntity.WITH_USER))
+        .setParameter("since", since)
+        .setParameter("now", now)
+        .getResultList();
+  }
+
+  /** Deletes a batch of Auth tokens that expired before the cutoff time.
+   *
+   * @param cutoff - tokens expired before this time are deleted
+   * @param batchSize - maximum number of tokens deleted
+   * @return number of deleted tokens
+   *
+   * */
+  public int deleteExpiredUserAuths(final ZonedDateTime cutoff, final int batchSize) {
+    return entityManager.createNamedQuery("deleteExpiredUserAuths")
+        .setParameter("cutoff", cutoff)
+        .setParameter("batchSize", batchSize)
+        .executeUpdate();
+  }
+
+  /** Deletes a batch of Auth tokens that were signed out before the cutoff time.
+   *
+   * @param cutoff - tokens signed out before this time are deleted
+   * @param batchSize - maximum number of tokens deleted
+   * @return number of deleted tokens
+   *
+   * */
+  public int deleteLoggedOutUserAuths(final ZonedDateTime cutoff, final int batchSize) {
+    return entityManager.createNamedQuery("deleteLoggedOutUserAuths")
+        .setParameter("cutoff", cutoff)
+        .setParameter("batchSize", batchSize)
+        .executeUpdate();
+  }
 }
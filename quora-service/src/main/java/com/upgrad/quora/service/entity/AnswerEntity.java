@@ -1,5 +1,7 @@
 package com.upgrad.quora.service.entity;
 
+import org.hibernate.annotations.Type;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -15,7 +17,8 @@ import java.time.ZonedDateTime;
 @NamedQueries(
     {
         @NamedQuery(name = "getAnswerByUuid", query = "select a from AnswerEntity a where a.uuid = :answerUuid"),
-        @NamedQuery(name = "getAnswersByQuestion", query = "select a from AnswerEntity a where a.question = :question")
+        @NamedQuery(name = "getAnswersByQuestionFirstPage", query = "select new com.upgrad.quora.service.business.AnswerSummary(a.id, a.uuid, a.ans, a.date, q.content) from AnswerEntity a join a.question q where q = :question order by a.date desc, a.id desc"),
+        @NamedQuery(name = "getAnswersByQuestionPageAfter", query = "select new com.upgrad.quora.service.business.AnswerSummary(a.id, a.uuid, a.ans, a.date, q.content) from AnswerEntity a join a.question q where q = :question and a.date <= :date and (a.date < :date or a.id < :id) order by a.date desc, a.id desc")
     }
 )
 public class AnswerEntity implements Serializable {
@@ -25,10 +28,12 @@ public class AnswerEntity implements Serializable {
    */
   @Id
   @Column(name = "ID")
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "answer_id_seq")
+  @SequenceGenerator(name = "answer_id_seq", sequenceName = "answer_id_seq", allocationSize = 50)
   private int id;
 
   @Column(name = "UUID")
+  @Type(type = UuidStringType.NAME)
   @NotNull
   @Size(max = 200)
   private String uuid;
@@ -43,12 +48,12 @@ public class AnswerEntity implements Serializable {
   private ZonedDateTime date;
 
   @NotNull
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "USER_ID")
   private UserEntity user;
 
   @NotNull
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "QUESTION_ID")
   private QuestionEntity question;
 
@@ -5,6 +5,8 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
+import org.hibernate.annotations.Type;
+
 import javax.persistence.*;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
@@ -14,24 +16,28 @@ import java.time.ZonedDateTime;
 @Table(name = "QUESTION")
 @NamedQueries({
     @NamedQuery(name = "getQuestionByUuid", query = "select q from QuestionEntity q where q.uuid = :uuid"),
-    @NamedQuery(name = "QuestionByUserId", query = "select q from QuestionEntity q where q.user = :user"),
-    @NamedQuery(name = "getAllQuestions", query = "select q from QuestionEntity q")
+    @NamedQuery(name = "getQuestionsByUuids", query = "select q from QuestionEntity q where q.uuid in :uuids"),
+    @NamedQuery(name = "QuestionByUserId", query = "select new com.upgrad.quora.service.business.QuestionSummary(q.id, q.uuid, q.content, q.dateCreated) from QuestionEntity q where q.user = :user"),
+    @NamedQuery(name = "getQuestionsFirstPage", query = "select new com.upgrad.quora.service.business.QuestionSummary(q.id, q.uuid, q.content, q.dateCreated) from QuestionEntity q order by q.dateCreated desc, q.id desc"),
+    @NamedQuery(name = "getQuestionsPageAfter", query = "select new com.upgrad.quora.service.business.QuestionSummary(q.id, q.uuid, q.content, q.dateCreated) from QuestionEntity q where q.dateCreated <= :date and (q.dateCreated < :date or q.id < :id) order by q.dateCreated desc, q.id desc")
 })
 public class QuestionEntity implements Serializable {
 
   @Id
   @Column(name = "ID")
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_id_seq")
+  @SequenceGenerator(name = "question_id_seq", sequenceName = "question_id_seq", allocationSize = 50)
   private long id;
 
   @Column(name = "UUID")
+  @Type(type = UuidStringType.NAME)
   @Size(max = 64)
   private String uuid;
 
   @Column(name = "CONTENT")
   private String content;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "USER_ID")
   private UserEntity user;
 
@@ -80,12 +86,18 @@ public class QuestionEntity implements Serializable {
 
   @Override
   public boolean equals(Object obj) {
-    return new EqualsBuilder().append(this, obj).isEquals();
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof QuestionEntity)) {
+      return false;
+    }
+    return new EqualsBuilder().append(uuid, ((QuestionEntity) obj).getUuid()).isEquals();
   }
 
   @Override
   public int hashCode() {
-    return new HashCodeBuilder().append(this).hashCode();
+    return new HashCodeBuilder().append(uuid).hashCode();
   }
 
   @Override
@@ -1,13 +1,18 @@
 package com.upgrad.quora.service.entity;
 
       /*ID BIGSERIAL           PRIMARY KEY,
-        uuid                   VARCHAR(200) NOT NULL,
+        uuid                   UUID NOT NULL,
         USER_ID                INTEGER NOT NULL,
         ACCESS_TOKEN           VARCHAR(500) NOT NULL,
+        ACCESS_TOKEN_DIGEST    BYTEA NOT NULL,
         EXPIRES_AT             TIMESTAMP NOT NULL,
         LOGIN_AT               TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
         LOGOUT_AT              TIMESTAMP NULL*/
 
+import com.upgrad.quora.service.common.AccessTokenDigest;
+
+import org.hibernate.annotations.Type;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -16,23 +21,36 @@ import java.time.ZonedDateTime;
 @Entity
 @Table(name = "user_auth")
 @NamedQueries({
-    @NamedQuery(name = "userAuthByToken", query = "select ua from UserAuthEntity ua where ua.accessToken = :token"),
-    @NamedQuery(name = "updateLogoutByToken", query = "update UserAuthEntity ua set ua.logoutAt = :logoutAt where ua.accessToken = :token")
+    @NamedQuery(name = "userSessionByToken", query = "select new com.upgrad.quora.service.business.UserSession(u.id, u.uuid, u.role, ua.expiresAt, ua.logoutAt) from UserAuthEntity ua join ua.userId u where ua.accessTokenDigest = :digest"),
+    @NamedQuery(name = "updateLogoutByToken", query = "update UserAuthEntity ua set ua.logoutAt = :logoutAt where ua.accessTokenDigest = :digest"),
+    @NamedQuery(name = "userAuthLoggedOutSince", query = "select ua from UserAuthEntity ua where ua.logoutAt >= :since and ua.expiresAt > :now")
+})
+@NamedEntityGraph(name = UserAuthEntity.WITH_USER, attributeNodes = @NamedAttributeNode("userId"))
+// The batch is selected oldest first through the index on its column, and deleted by primary key:
+// a plain "id in (select ... limit)" lets the planner hash join against a scan of the whole table
+@NamedNativeQueries({
+    @NamedNativeQuery(name = "deleteExpiredUserAuths", query = "delete from user_auth where id = any(array(select id from user_auth where expires_at < :cutoff order by expires_at limit :batchSize))"),
+    @NamedNativeQuery(name = "deleteLoggedOutUserAuths", query = "delete from user_auth where id = any(array(select id from user_auth where logout_at < :cutoff order by logout_at limit :batchSize))")
 })
 
 public class UserAuthEntity {
 
+  /** Fetch plan loading the user along with the token, for building a UserSession */
+  public static final String WITH_USER = "UserAuthEntity.withUser";
+
   @Id
   @Column(name = "ID")
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_auth_id_seq")
+  @SequenceGenerator(name = "user_auth_id_seq", sequenceName = "user_auth_id_seq", allocationSize = 50)
   private long id;
 
   @Column(name = "UUID")
+  @Type(type = UuidStringType.NAME)
   @NotNull
   @Size(max = 200)
   private String uuid;
 
-  @ManyToOne(cascade = CascadeType.ALL)
+  @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
   @JoinColumn(name = "USER_ID")
   private UserEntity userId;
 
@@ -41,6 +59,10 @@ public class UserAuthEntity {
   @Size(max = 500)
   private String accessToken;
 
+  @Column(name = "ACCESS_TOKEN_DIGEST")
+  @NotNull
+  private byte[] accessTokenDigest;
+
   @Column(name = "EXPIRES_AT")
   @NotNull
   private ZonedDateTime expiresAt;
@@ -82,10 +104,15 @@ public class UserAuthEntity {
 
   public void setAccessToken(String accessToken) {
     this.accessToken = accessToken;
+    this.accessTokenDigest = AccessTokenDigest.digest(accessToken);
+  }
+
+  public byte[] getAccessTokenDigest() {
+    return accessTokenDigest;
   }
 
-  public ZonedDateTime getExpiresAt(ZonedDateTime expiresAt) {
-    return this.expiresAt;
+  public ZonedDateTime getExpiresAt() {
+    return expiresAt;
   }
 
   public void setExpiresAt(ZonedDateTime expiresAt) {
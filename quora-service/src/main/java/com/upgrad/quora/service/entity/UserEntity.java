@@ -1,7 +1,7 @@
 package com.upgrad.quora.service.entity;
 
 // id                   SERIAL,
-// uuid                 VARCHAR(200) NOT NULL,
+// uuid                 UUID NOT NULL,
 // firstName            VARCHAR(30) NOT NULL,
 // lastName             VARCHAR(30) NOT NULL,
 // userName             VARCHAR(30) UNIQUE NOT NULL,
@@ -15,6 +15,8 @@ package com.upgrad.quora.service.entity;
 // contactNumber        VARCHAR(30),
 // PRIMARY KEY (id));
 
+import org.hibernate.annotations.Type;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -33,10 +35,12 @@ public class UserEntity implements Serializable {
 
   @Id
   @Column(name = "ID")
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+  @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
   private long id;
 
   @Column(name = "UUID")
+  @Type(type = UuidStringType.NAME)
   @NotNull
   @Size(max = 200)
   private String uuid;
@@ -0,0 +1,111 @@
+package com.upgrad.quora.service.entity;
+
+import org.hibernate.type.AbstractSingleColumnStandardBasicType;
+import org.hibernate.type.PostgresUUIDType.PostgresUUIDSqlTypeDescriptor;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractTypeDescriptor;
+
+import java.util.UUID;
+
+/**
+ * Maps the String uuids of the entities to the 16 byte PostgreSQL uuid columns, so that the rest
+ * of the application keeps handling uuids as strings. Parameters compared with a uuid attribute in
+ * a query are bound through this type as well.
+ *
+ * A string which is not a uuid cannot be stored in a uuid column, so it cannot match any row
+ * either. It is bound as null, which makes a lookup by such a string find nothing instead of
+ * failing in the database.
+ */
+public class UuidStringType extends AbstractSingleColumnStandardBasicType<String> {
+
+  /** Name to be used in the @Type annotation of the uuid attributes */
+  public static final String NAME = "com.upgrad.quora.service.entity.UuidStringType";
+
+  public UuidStringType() {
+    super(PostgresUUIDSqlTypeDescriptor.INSTANCE, UuidStringTypeDescriptor.INSTANCE);
+  }
+
+  @Override
+  public String getName() {
+    return "uuid-string";
+  }
+
+  /**
+   * Uuids are read back from the database in the lowercase form of UUID.toString, while a uuid
+   * given in a request may be in uppercase and still match the same row.
+   *
+   * @param value - uuid as given in a request
+   * @return the uuid in the form it is read back from the database, or the value itself if it is
+   *     not a uuid
+   */
+  public static String normalize(final String value) {
+    if (value == null) {
+      return null;
+    }
+    final UUID uuid = UuidStringTypeDescriptor.parse(value);
+    return uuid == null ? value : uuid.toString();
+  }
+
+  /**
+   * Converts between the string form of a uuid and java.util.UUID, which the PostgreSQL driver
+   * binds and reads as a uuid.
+   */
+  private static class UuidStringTypeDescriptor extends AbstractTypeDescriptor<String> {
+
+    private static final UuidStringTypeDescriptor INSTANCE = new UuidStringTypeDescriptor();
+
+    private static final int UUID_LENGTH = 36;
+
+    UuidStringTypeDescriptor() {
+      super(String.class);
+    }
+
+    @Override
+    public String toString(final String value) {
+      return value;
+    }
+
+    @Override
+    public String fromString(final String string) {
+      return string;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> X unwrap(final String value, final Class<X> type, final WrapperOptions options) {
+      if (value == null) {
+        return null;
+      }
+      if (UUID.class.isAssignableFrom(type)) {
+        return (X) parse(value);
+      }
+      if (String.class.isAssignableFrom(type)) {
+        return (X) value;
+      }
+      throw unknownUnwrap(type);
+    }
+
+    @Override
+    public <X> String wrap(final X value, final WrapperOptions options) {
+      if (value == null) {
+        return null;
+      }
+      if (value instanceof UUID || value instanceof String) {
+        return value.toString();
+      }
+      throw unknownWrap(value.getClass());
+    }
+
+    private static UUID parse(final String value) {
+      // UUID.fromString also accepts shortened forms such as "1-1-1-1-1", which are not uuids
+      if (value.length() != UUID_LENGTH) {
+        return null;
+      }
+      try {
+        return UUID.fromString(value);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+  }
+}
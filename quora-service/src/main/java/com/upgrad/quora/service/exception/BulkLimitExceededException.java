@@ -0,0 +1,44 @@
+package com.upgrad.quora.service.exception;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+/**
+ * BulkLimitExceededException is thrown when a bulk request holds more items than a single request
+ * is allowed to create.
+ */
+public class BulkLimitExceededException extends Exception {
+
+  private final String code;
+  private final String errorMessage;
+
+  public BulkLimitExceededException(final String code, final String errorMessage) {
+    this.code = code;
+    this.errorMessage = errorMessage;
+  }
+
+  @Override
+  public void printStackTrace() {
+    super.printStackTrace();
+  }
+
+  @Override
+  public void printStackTrace(PrintStream s) {
+    super.printStackTrace(s);
+  }
+
+  @Override
+  public void printStackTrace(PrintWriter s) {
+    super.printStackTrace(s);
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+}
+
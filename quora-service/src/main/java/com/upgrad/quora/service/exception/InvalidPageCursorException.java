@@ -0,0 +1,44 @@
+package com.upgrad.quora.service.exception;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+/**
+ * InvalidPageCursorException is thrown when the cursor passed to a paginated listing cannot be
+ * decoded.
+ */
+public class InvalidPageCursorException extends Exception {
+
+  private final String code;
+  private final String errorMessage;
+
+  public InvalidPageCursorException(final String code, final String errorMessage) {
+    this.code = code;
+    this.errorMessage = errorMessage;
+  }
+
+  @Override
+  public void printStackTrace() {
+    super.printStackTrace();
+  }
+
+  @Override
+  public void printStackTrace(PrintStream s) {
+    super.printStackTrace(s);
+  }
+
+  @Override
+  public void printStackTrace(PrintWriter s) {
+    super.printStackTrace(s);
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+}
+
@@ -0,0 +1,43 @@
+package com.upgrad.quora.service.exception;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+/**
+ * ServiceUnavailableException is thrown when the server is too busy to accept a request, e.g. when
+ * the password hashing queue is full. The request can be retried later.
+ */
+public class ServiceUnavailableException extends Exception {
+
+  private final String code;
+  private final String errorMessage;
+
+  public ServiceUnavailableException(final String code, final String errorMessage) {
+    this.code = code;
+    this.errorMessage = errorMessage;
+  }
+
+  @Override
+  public void printStackTrace() {
+    super.printStackTrace();
+  }
+
+  @Override
+  public void printStackTrace(PrintStream s) {
+    super.printStackTrace(s);
+  }
+
+  @Override
+  public void printStackTrace(PrintWriter s) {
+    super.printStackTrace(s);
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+}